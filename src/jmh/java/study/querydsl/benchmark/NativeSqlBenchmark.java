@@ -0,0 +1,27 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 회원 검색 DTO 조회 경로 비교: Querydsl JPA, 캐시된 JPQL, querydsl-sql
+ * 결과 캐시를 거치지 않도록 각 경로를 직접 호출한다.
+ */
+public class NativeSqlBenchmark {
+
+  @Benchmark
+  public List<MemberTeamDto> jpa(RepositoryState state) {
+    return state.memberJpaRepository.search(state.condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> jpaShapeCache(RepositoryState state) {
+    return state.memberSearchShapeCache.search(state.condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> nativeSql(RepositoryState state) {
+    return state.memberSqlRepository.search(state.condition);
+  }
+}
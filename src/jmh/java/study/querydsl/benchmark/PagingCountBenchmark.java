@@ -0,0 +1,31 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 페이징 count 방식 비교: fetchResults, count 쿼리 분리, PageableExecutionUtils
+ * 두 번째 페이지를 꽉 채워서 조회하므로 PageableExecutionUtils 도 count 쿼리를 실행한다.
+ */
+public class PagingCountBenchmark {
+
+  private static final Pageable PAGEABLE = PageRequest.of(1, 5);
+
+  @Benchmark
+  public Page<MemberTeamDto> fetchResults(RepositoryState state) {
+    return state.memberRepository.searchPageSimple(state.condition, PAGEABLE);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> separateCount(RepositoryState state) {
+    return state.memberRepository.searchPageComplexOld(state.condition, PAGEABLE);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> pageableExecutionUtils(RepositoryState state) {
+    return state.memberRepository.searchPageComplex(state.condition, PAGEABLE);
+  }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Projections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+/**
+ * DTO 프로젝션 방식 비교: setter, 필드, 생성자, @QueryProjection
+ */
+public class ProjectionBenchmark {
+
+  @Benchmark
+  public List<MemberDto> bean(RepositoryState state) {
+    return state.queryFactory
+        .select(Projections.bean(MemberDto.class,
+            member.username,
+            member.age))
+        .from(member)
+        .join(member.team, team)
+        .where(team.name.eq("team3"))
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> fields(RepositoryState state) {
+    return state.queryFactory
+        .select(Projections.fields(MemberDto.class,
+            member.username,
+            member.age))
+        .from(member)
+        .join(member.team, team)
+        .where(team.name.eq("team3"))
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> constructor(RepositoryState state) {
+    return state.queryFactory
+        .select(Projections.constructor(MemberDto.class,
+            member.username,
+            member.age))
+        .from(member)
+        .join(member.team, team)
+        .where(team.name.eq("team3"))
+        .fetch();
+  }
+
+  @Benchmark
+  public List<MemberDto> queryProjection(RepositoryState state) {
+    return state.queryFactory
+        .select(new QMemberDto(
+            member.username,
+            member.age))
+        .from(member)
+        .join(member.team, team)
+        .where(team.name.eq("team3"))
+        .fetch();
+  }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchShapeCache;
+import study.querydsl.repository.MemberSqlRepository;
+
+/**
+ * 임베디드 H2(in-memory)에 dataSize 건의 회원을 넣고 스프링 컨텍스트를 띄운다.
+ * 팀은 10개, 나이는 0~99 로 고르게 분포시킨다.
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+  private static final int TEAM_COUNT = 10;
+  private static final int FLUSH_SIZE = 1000;
+
+  @Param({"1000", "10000", "100000"})
+  public int dataSize;
+
+  ConfigurableApplicationContext context;
+  EntityManager em;
+  JPAQueryFactory queryFactory;
+  MemberJpaRepository memberJpaRepository;
+  MemberRepository memberRepository;
+  MemberSearchShapeCache memberSearchShapeCache;
+  MemberSqlRepository memberSqlRepository;
+
+  // teamName=team3, 30 <= age <= 39 : 전체의 약 1%
+  MemberSearchCondition condition;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .profiles("jmh")
+        .properties(
+            "spring.datasource.url=jdbc:h2:mem:jmh" + dataSize + ";DB_CLOSE_DELAY=-1",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "spring.jpa.properties.hibernate.use_sql_comments=false",
+            "logging.level.root=warn",
+            "logging.level.org.hibernate.SQL=warn",
+            "decorator.datasource.p6spy.enable-logging=false",
+            // count 캐시가 켜져 있으면 조회 방식 비교가 의미 없어진다
+            "querydsl.count-cache.enabled=false",
+            // 검색 결과 캐시(SearchResultCache)도 같은 이유로 끈다
+            "querydsl.search-cache.enabled=false")
+        .run();
+
+    em = context.getBean(EntityManager.class);
+    queryFactory = new JPAQueryFactory(em);
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    memberRepository = context.getBean(MemberRepository.class);
+    memberSearchShapeCache = context.getBean(MemberSearchShapeCache.class);
+    memberSqlRepository = context.getBean(MemberSqlRepository.class);
+
+    seed(context.getBean(PlatformTransactionManager.class));
+
+    condition = new MemberSearchCondition();
+    condition.setTeamName("team3");
+    condition.setAgeGoe(30);
+    condition.setAgeLoe(39);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  private void seed(PlatformTransactionManager transactionManager) {
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      Team[] teams = new Team[TEAM_COUNT];
+      for (int i = 0; i < TEAM_COUNT; i++) {
+        teams[i] = new Team("team" + i);
+        em.persist(teams[i]);
+      }
+
+      for (int i = 0; i < dataSize; i++) {
+        em.persist(new Member("member" + i, i % 100, teams[i % TEAM_COUNT]));
+        if ((i + 1) % FLUSH_SIZE == 0) {
+          em.flush();
+          em.clear();
+          for (int t = 0; t < TEAM_COUNT; t++) {
+            teams[t] = em.getReference(Team.class, teams[t].getId());
+          }
+        }
+      }
+    });
+  }
+}
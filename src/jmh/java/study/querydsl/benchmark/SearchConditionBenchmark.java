@@ -0,0 +1,21 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 동적 쿼리 작성 방식 비교: BooleanBuilder vs where 다중 파라미터
+ */
+public class SearchConditionBenchmark {
+
+  @Benchmark
+  public List<MemberTeamDto> booleanBuilder(RepositoryState state) {
+    return state.memberJpaRepository.searchByBuilder(state.condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> whereParameters(RepositoryState state) {
+    return state.memberJpaRepository.search(state.condition);
+  }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * querydsl-sql 설정
+ * JPA 와 같은 DataSource 를 사용하고, 트랜잭션 안에서는 JPA 와 같은 커넥션을 사용한다.
+ */
+@Configuration
+public class QuerydslSqlConfig {
+
+  @Bean
+  public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+    com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+    configuration.setExceptionTranslator(new SpringExceptionTranslator());
+    return configuration;
+  }
+
+  @Bean
+  public SQLQueryFactory sqlQueryFactory(DataSource dataSource, com.querydsl.sql.Configuration querydslSqlConfiguration) {
+    // SpringConnectionProvider 는 트랜잭션에 묶인 커넥션만 허용한다
+    return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+  }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import com.p6spy.engine.logging.Category;
+import com.p6spy.engine.logging.P6LogOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * 비동기 SQL 로그 (p6spy.async.enabled=true)
+ *
+ * 요청 스레드에서는 SQL 원문, 실행 시간, 커넥션 id 만 링 버퍼에 넣고 바로 돌아간다. (문자열 포맷 없음)
+ * 포맷과 로그 출력은 백그라운드 스레드에서 {@link CustomP6spySqlFormat} 으로 한다.
+ * p6spy.detail 이면 호출 위치({@link CallSite#current()})는 요청 스레드에서 잡아 둔다. (writer 스레드 스택은 보지 않는다)
+ *
+ * - sampleRate 비율만큼만 기록한다. (1.0 이면 전부)
+ * - 버퍼가 가득 차면 버리고 dropped 를 센다. (요청 스레드는 기다리지 않는다)
+ * - 바인딩 값은 기록하지 않는다. (값이 들어간 SQL 을 만드는 것 자체가 포맷 비용이다)
+ * - p6spy 기본(동기) 로그와 중복되므로 켜져 있는 동안 p6spy 로그의 모든 category 를 제외해서 끈다. (종료 시 복원)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "p6spy.async.enabled", havingValue = "true")
+public class AsyncSqlLogger extends SimpleJdbcEventListener {
+
+  private static final Category[] ALL_CATEGORIES = {Category.ERROR, Category.INFO, Category.DEBUG,
+      Category.STATEMENT, Category.BATCH, Category.COMMIT, Category.ROLLBACK, Category.RESULT, Category.RESULTSET,
+      Category.OUTAGE};
+
+  private final SqlLogRingBuffer<Event> buffer;
+  private final double sampleRate;
+  private final boolean detail;
+  private final CustomP6spySqlFormat format;
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat("yy-MM-dd HH:mm:ss:SSS");
+  private final Thread writer;
+  private volatile boolean running = true;
+  // p6spy 동기 로그를 껐으면 원래 제외 category (종료 시 복원)
+  private String excludedCategories;
+  private boolean syncLoggingDisabled;
+
+  private final LongAdder captured = new LongAdder();
+  private final LongAdder sampledOut = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder written = new LongAdder();
+
+  public AsyncSqlLogger(@Value("${p6spy.async.buffer-size:8192}") int bufferSize,
+                        @Value("${p6spy.async.sample-rate:1.0}") double sampleRate,
+                        @Value("${p6spy.detail:false}") boolean detail) {
+    this.buffer = new SqlLogRingBuffer<>(bufferSize);
+    this.sampleRate = sampleRate;
+    this.detail = detail;
+    this.format = new CustomP6spySqlFormat(detail);
+    this.writer = new Thread(this::drainLoop, "sql-log-writer");
+    this.writer.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    P6LogOptions logOptions = P6LogOptions.getActiveInstance();
+    if (logOptions != null) {
+      excludedCategories = logOptions.getExcludecategories();
+      syncLoggingDisabled = true;
+      logOptions.setExcludecategories(Arrays.stream(ALL_CATEGORIES)
+          .map(Category::getName)
+          .collect(Collectors.joining(",")));
+    }
+    writer.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    P6LogOptions logOptions = P6LogOptions.getActiveInstance();
+    if (logOptions != null && syncLoggingDisabled) {
+      logOptions.setExcludecategories(excludedCategories != null ? excludedCategories : "");
+    }
+    running = false;
+    LockSupport.unpark(writer);
+    writer.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+    if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      sampledOut.increment();
+      return;
+    }
+    Event event = new Event(System.currentTimeMillis(), timeElapsedNanos,
+        statementInformation.getConnectionInformation().getConnectionId(), e != null, statementInformation.getSql(),
+        detail ? CallSite.current() : null);
+    if (buffer.offer(event)) {
+      captured.increment();
+    } else {
+      dropped.increment();
+    }
+  }
+
+  public Stats stats() {
+    return new Stats(captured.sum(), sampledOut.sum(), dropped.sum(), written.sum(), buffer.size(),
+        buffer.capacity(), sampleRate);
+  }
+
+  private void drainLoop() {
+    while (running || buffer.size() > 0) {
+      Event event = buffer.poll();
+      if (event == null) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        continue;
+      }
+      write(event);
+    }
+  }
+
+  private void write(Event event) {
+    try {
+      String category = event.error() ? Category.ERROR.getName() : Category.STATEMENT.getName();
+      String message = format.formatMessage(event.connectionId(), dateFormat.format(new Date(event.timestamp())),
+          TimeUnit.NANOSECONDS.toMillis(event.elapsedNanos()), category, event.sql(),
+          event.site() != null ? List.of(event.site()) : List.of());
+      if (!message.isEmpty()) {
+        log.info(message);
+      }
+      written.increment();
+    } catch (RuntimeException e) {
+      log.warn("Failed to write SQL log", e);
+    }
+  }
+
+  /**
+   * @param captured   버퍼에 넣은 문장 수
+   * @param sampledOut 샘플링으로 건너뛴 문장 수
+   * @param dropped    버퍼가 가득 차서 버린 문장 수
+   * @param written    로그로 출력한 문장 수
+   */
+  public record Stats(long captured, long sampledOut, long dropped, long written, int buffered, int capacity,
+                      double sampleRate) {
+  }
+
+  /**
+   * @param site detail 일 때만 요청 스레드에서 잡은 호출 위치 (아니면 null)
+   */
+  private record Event(long timestamp, long elapsedNanos, int connectionId, boolean error, String sql,
+                       String site) {
+  }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.config.p6spy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SQL 을 실행시킨 애플리케이션 메서드 찾기 (예: MemberRepositoryImpl.searchPageComplexUsingSort)
+ *
+ * 스택에서 study.querydsl 패키지의 가장 안쪽 클래스를 찾고, 그 클래스로 들어온 가장 바깥 프레임(진입 메서드)을 고른다.
+ * 결과 캐시 loader 같은 private 메서드 / 람다가 아니라 호출된 리포지토리 메서드로 집계하기 위해서다.
+ * 설정(config), 공통 지원 코드(repository.support), 리포지토리 내부 도우미(SKIPPED_CLASSES), 스프링 프록시 클래스는 건너뛴다.
+ * 애플리케이션 프레임이 없는 작업 스레드(동시 count 등)는 {@link #bind} 로 넘겨받은 요청의 호출 위치를 쓴다.
+ * {@link #stack()} 은 로그용이라 설정 / 공통 지원 코드 프레임도 남긴다. (프록시만 제외)
+ *
+ * StackWalker 로 진입 프레임까지만 본다. (Throwable 처럼 전체 스택을 만들지 않는다)
+ * 클래스별 판정과 "클래스.메서드" 문자열은 캐시해서 같은 위치는 다시 만들지 않는다.
+ */
+public final class CallSite {
+
+  static final String UNKNOWN = "(unknown)";
+
+  private static final String APPLICATION_PACKAGE = "study.querydsl.";
+  private static final String[] SKIPPED_PACKAGES = {"study.querydsl.config.", "study.querydsl.repository.support."};
+  // 리포지토리 구현이 쓰는 도우미 (SQL 은 실행하지만 호출 위치로 보지 않는다)
+  private static final Set<String> SKIPPED_CLASSES = Set.of(
+      "study.querydsl.repository.MemberSearchShapeCache",
+      "study.querydsl.repository.MemberSearchPredicates");
+
+  private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+  private static final ClassValue<Boolean> APPLICATION_CLASSES = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return isApplicationFrame(type.getName());
+    }
+  };
+
+  // 진입 프레임을 찾는 중에 건너뛸 수 있는 애플리케이션 프레임 (설정 / 공통 지원 코드 / 도우미)
+  private static final ClassValue<Boolean> SKIPPED_APPLICATION_CLASSES = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      String className = type.getName();
+      return className.startsWith(APPLICATION_PACKAGE) && !className.contains("$$")
+          && !isApplicationFrame(className);
+    }
+  };
+
+  private static final ThreadLocal<String> INHERITED = new ThreadLocal<>();
+
+  private static final ClassValue<ConcurrentMap<String, String>> SITES = new ClassValue<>() {
+    @Override
+    protected ConcurrentMap<String, String> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private CallSite() {
+  }
+
+  public static String current() {
+    StackWalker.StackFrame entry = WALKER.walk(CallSite::entryFrame);
+    if (entry != null) {
+      return site(entry);
+    }
+    String inherited = INHERITED.get();
+    return inherited != null ? inherited : UNKNOWN;
+  }
+
+  /**
+   * 요청 스레드에서 꺼낸 호출 위치를 작업 스레드에 묶는다. 작업이 끝나면 {@link #unbind()} 로 푼다.
+   */
+  public static void bind(String site) {
+    if (site != null && !site.equals(UNKNOWN)) {
+      INHERITED.set(site);
+    }
+  }
+
+  public static void unbind() {
+    INHERITED.remove();
+  }
+
+  // 첫 애플리케이션 클래스의 프레임 중 가장 바깥 것. 사이의 설정 / 지원 코드 / 도우미 프레임은 건너뛰고 그 밖의 프레임에서 멈춘다
+  private static StackWalker.StackFrame entryFrame(Stream<StackWalker.StackFrame> frames) {
+    StackWalker.StackFrame entry = null;
+    Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+    while (iterator.hasNext()) {
+      StackWalker.StackFrame frame = iterator.next();
+      if (isApplicationFrame(frame)) {
+        if (entry != null && frame.getDeclaringClass() != entry.getDeclaringClass()) {
+          break;
+        }
+        entry = frame;
+      } else if (entry != null && !SKIPPED_APPLICATION_CLASSES.get(frame.getDeclaringClass())) {
+        break;
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * study.querydsl 프레임 전부 (바깥쪽부터)
+   */
+  public static List<String> stack() {
+    List<String> stack = WALKER.walk(frames -> frames
+        .filter(frame -> isStackFrame(frame.getClassName()))
+        .map(frame -> site(frame) + ":" + frame.getLineNumber())
+        .collect(Collectors.toCollection(ArrayList::new)));
+    Collections.reverse(stack);
+    return stack;
+  }
+
+  private static boolean isApplicationFrame(StackWalker.StackFrame frame) {
+    return APPLICATION_CLASSES.get(frame.getDeclaringClass());
+  }
+
+  private static String site(StackWalker.StackFrame frame) {
+    Class<?> type = frame.getDeclaringClass();
+    return SITES.get(type).computeIfAbsent(frame.getMethodName(),
+        method -> simpleName(type.getName()) + "." + methodName(method));
+  }
+
+  static boolean isApplicationFrame(String className) {
+    if (!className.startsWith(APPLICATION_PACKAGE) || className.contains("$$")) {
+      return false;
+    }
+    for (String skipped : SKIPPED_PACKAGES) {
+      if (className.startsWith(skipped)) {
+        return false;
+      }
+    }
+    return !SKIPPED_CLASSES.contains(className);
+  }
+
+  // CallSite 자신(stack() 호출 프레임)은 뺀다
+  static boolean isStackFrame(String className) {
+    return className.startsWith(APPLICATION_PACKAGE) && !className.contains("$$")
+        && !className.startsWith(CallSite.class.getName());
+  }
+
+  private static String simpleName(String className) {
+    String simpleName = className.substring(className.lastIndexOf('.') + 1);
+    int inner = simpleName.indexOf('$');
+    return inner < 0 ? simpleName : simpleName.substring(0, inner);
+  }
+
+  // lambda$searchPageComplex$3 -> searchPageComplex
+  static String methodName(String methodName) {
+    if (!methodName.startsWith("lambda$")) {
+      return methodName;
+    }
+    return Optional.of(methodName.split("\\$"))
+        .filter(parts -> parts.length > 1)
+        .map(parts -> parts[1])
+        .orElse(methodName);
+  }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 실행된 SQL 을 호출 메서드 별로 {@link CallSiteStats} 에 모은다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.call-site.enabled", havingValue = "true", matchIfMissing = true)
+public class CallSiteJdbcEventListener extends SimpleJdbcEventListener {
+
+  private final CallSiteStats callSiteStats;
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+    callSiteStats.record(CallSite.current(), timeElapsedNanos);
+  }
+}
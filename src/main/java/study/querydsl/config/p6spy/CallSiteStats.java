@@ -0,0 +1,59 @@
+package study.querydsl.config.p6spy;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 호출 메서드({@link CallSite}) 별 SQL 문장 수와 DB 시간 합계
+ */
+@Component
+public class CallSiteStats {
+
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public void record(String site, long elapsedNanos) {
+    Counter counter = counters.get(site);
+    if (counter == null) {
+      counter = counters.computeIfAbsent(site, key -> new Counter());
+    }
+    counter.statements.increment();
+    counter.totalNanos.add(elapsedNanos);
+    if (elapsedNanos > counter.maxNanos.get()) {
+      counter.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+  }
+
+  /**
+   * DB 시간 합계가 큰 순서
+   */
+  public List<Stats> stats() {
+    List<Stats> stats = new ArrayList<>();
+    counters.forEach((site, counter) -> stats.add(counter.snapshot(site)));
+    stats.sort(Comparator.comparingDouble(Stats::totalMillis).reversed());
+    return stats;
+  }
+
+  /**
+   * @param site        클래스.메서드
+   * @param totalMillis SQL 실행 시간 합계(ms)
+   */
+  public record Stats(String site, long statements, double totalMillis, double maxMillis) {
+  }
+
+  private static class Counter {
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private Stats snapshot(String site) {
+      return new Stats(site, statements.sum(), totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0);
+    }
+  }
+}
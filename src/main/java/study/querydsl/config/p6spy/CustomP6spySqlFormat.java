@@ -3,33 +3,50 @@ package study.querydsl.config.p6spy;
 import com.p6spy.engine.logging.Category;
 import com.p6spy.engine.spy.appender.MessageFormattingStrategy;
 import org.hibernate.engine.jdbc.internal.FormatStyle;
-import org.springframework.beans.factory.annotation.Value;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Stack;
 
+/**
+ * p6spy 가 리플렉션으로 만들 때는 기본 생성자(detail 끔)를 쓴다.
+ * {@link AsyncSqlLogger} 는 p6spy.detail 값을 생성자로 넘기고, 요청 스레드에서 잡아 둔 호출 위치로 포맷한다.
+ */
 public class CustomP6spySqlFormat implements MessageFormattingStrategy {
 
-  @Value("${p6spy.detail:false}")
-  private boolean detail;
-  // 표기에 허용되지 않는 filter
-  private List<String> DENIED_FILTER = Arrays.asList("Test1"
-      , this.getClass().getSimpleName());
-  // 표기에 허용되는 filter
-  private String ALLOW_FILTER = "study.querydsl";
+  private final boolean detail;
+
+  public CustomP6spySqlFormat() {
+    this(false);
+  }
+
+  public CustomP6spySqlFormat(boolean detail) {
+    this.detail = detail;
+  }
 
   @Override
   public String formatMessage(int connectionId, String now, long elapsed, String category,
                               String prepared, String sql, String url) {
+    // 실행한 스레드에서 호출되므로 지금 스택을 본다
+    return format(connectionId, now, elapsed, category, sql, detail ? CallSite.stack() : List.of());
+  }
+
+  /**
+   * 다른 스레드에서 포맷할 때 사용한다. 스택을 보지 않고 callStack(요청 스레드에서 잡아 둔 호출 위치)으로 표기한다.
+   */
+  public String formatMessage(int connectionId, String now, long elapsed, String category, String sql,
+                              List<String> callStack) {
+    return format(connectionId, now, elapsed, category, sql, callStack);
+  }
+
+  private String format(int connectionId, String now, long elapsed, String category, String sql,
+                        List<String> callStack) {
     sql = formatSql(category, sql);
     if (sql.trim().isEmpty()) { // sql 이 없다면 출력하지 않아도 됨
       return "";
     }
     // stack 을 구성하는 Format을 만든다
     if (detail) {
-      return sql + createStack(connectionId, elapsed);
+      return sql + createStack(connectionId, elapsed, callStack);
     } else {
       return now + "|" + elapsed + "ms|" + category + "|connection " + connectionId + "|" + sql;
     }
@@ -53,25 +70,12 @@ public class CustomP6spySqlFormat implements MessageFormattingStrategy {
     return sql;
   }
 
-  // stack 콘솔 표기
-  private String createStack(int connectionId, long elapsed) {
-    Stack<String> callStack = new Stack<>();
-    StackTraceElement[] stackTrace = new Throwable().getStackTrace();
-
-    for (StackTraceElement stackTraceElement : stackTrace) {
-      String trace = stackTraceElement.toString();
-
-      // trace 항목을 보고 내게 맞는 것만 필터
-//      if(trace.startsWith(ALLOW_FILTER) && !filterDenied(trace)) {
-      if (trace.startsWith(ALLOW_FILTER)) {
-        callStack.push(trace);
-      }
-    }
-
-    StringBuffer sb = new StringBuffer();
+  // stack 콘솔 표기 (study.querydsl 프레임, 바깥쪽부터)
+  private String createStack(int connectionId, long elapsed, List<String> callStack) {
+    StringBuilder sb = new StringBuilder();
     int order = 1;
-    while (callStack.size() != 0) {
-      sb.append("\n\t\t" + (order++) + "." + callStack.pop());
+    for (String frame : callStack) {
+      sb.append("\n\t\t").append(order++).append(".").append(frame);
     }
 
     return new StringBuffer().append("\n\n\tConnection ID:").append(connectionId)
@@ -0,0 +1,79 @@
+package study.querydsl.config.p6spy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트(매핑) 별 SQL 문장 수 통계, 예산 초과 / N+1 의심 기록
+ */
+@Slf4j
+@Component
+public class EndpointStatementStats {
+
+  private final int repeatThreshold;
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public EndpointStatementStats(@Value("${querydsl.statement-budget.repeat-threshold:5}") int repeatThreshold) {
+    this.repeatThreshold = repeatThreshold;
+  }
+
+  public void record(RequestStatements statements) {
+    Counter counter = counters.computeIfAbsent(statements.getEndpoint(), endpoint -> new Counter());
+    counter.requests.increment();
+    counter.statements.add(statements.getTotal());
+    counter.maxStatements.accumulateAndGet(statements.getTotal(), Math::max);
+
+    if (statements.isOverBudget()) {
+      counter.overBudget.increment();
+      log.warn("SQL statement budget exceeded: endpoint={}, statements={}, budget={}",
+          statements.getEndpoint(), statements.getTotal(), statements.getBudget());
+    }
+
+    List<String> repeated = statements.repeatedFingerprints(repeatThreshold);
+    if (!repeated.isEmpty()) {
+      counter.nPlusOneSuspects.increment();
+      counter.lastSuspect.set(repeated.get(0));
+      for (String fingerprint : repeated) {
+        log.warn("Suspected N+1: endpoint={}, count={}, sql={}",
+            statements.getEndpoint(), statements.getFingerprints().get(fingerprint), fingerprint);
+      }
+    }
+  }
+
+  public Map<String, Stats> stats() {
+    Map<String, Stats> stats = new TreeMap<>();
+    counters.forEach((endpoint, counter) -> stats.put(endpoint, counter.snapshot()));
+    return stats;
+  }
+
+  /**
+   * @param lastSuspect 마지막으로 N+1 로 의심된 SQL fingerprint
+   */
+  public record Stats(long requests, long statements, long maxStatements, long overBudget,
+                      long nPlusOneSuspects, String lastSuspect) {
+  }
+
+  private static class Counter {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final AtomicLong maxStatements = new AtomicLong();
+    private final LongAdder overBudget = new LongAdder();
+    private final LongAdder nPlusOneSuspects = new LongAdder();
+    private final AtomicReference<String> lastSuspect = new AtomicReference<>();
+
+    private Stats snapshot() {
+      return new Stats(requests.sum(), statements.sum(), maxStatements.get(), overBudget.sum(),
+          nPlusOneSuspects.sum(), lastSuspect.get());
+    }
+  }
+}
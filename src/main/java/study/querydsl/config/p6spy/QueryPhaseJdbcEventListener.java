@@ -0,0 +1,25 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.QueryPhases;
+
+import java.sql.SQLException;
+
+/**
+ * 샘플링 중인 리포지토리 호출에 JDBC 실행 시작 시점과 실행 시간을 알려준다. ({@link QueryPhases})
+ */
+@Component
+public class QueryPhaseJdbcEventListener extends SimpleJdbcEventListener {
+
+  @Override
+  public void onBeforeAnyExecute(StatementInformation statementInformation) {
+    QueryPhases.beforeExecute();
+  }
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+    QueryPhases.afterExecute(timeElapsedNanos);
+  }
+}
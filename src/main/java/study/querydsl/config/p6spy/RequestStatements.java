@@ -0,0 +1,97 @@
+package study.querydsl.config.p6spy;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청 하나에서 실행된 SQL 문장을 fingerprint 별로 센다. (요청 스레드에 묶인다)
+ * 요청을 대신해 다른 스레드에서 실행하는 작업(동시 count 등)은 {@link #bind} 로 같은 객체에 기록한다.
+ * 두 스레드에서 함께 기록할 수 있으므로 기록과 조회는 동기화한다.
+ */
+@Getter
+public class RequestStatements {
+
+  private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+  private final String endpoint;
+  private final int budget;
+  private final StatementBudgetMode mode;
+  @Getter(AccessLevel.NONE)
+  private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+  @Getter(AccessLevel.NONE)
+  private int total;
+
+  RequestStatements(String endpoint, int budget, StatementBudgetMode mode) {
+    this.endpoint = endpoint;
+    this.budget = budget;
+    this.mode = mode;
+  }
+
+  public static void start(String endpoint, int budget, StatementBudgetMode mode) {
+    CURRENT.set(new RequestStatements(endpoint, budget, mode));
+  }
+
+  public static RequestStatements current() {
+    return CURRENT.get();
+  }
+
+  public static RequestStatements finish() {
+    RequestStatements statements = CURRENT.get();
+    CURRENT.remove();
+    return statements;
+  }
+
+  /**
+   * 요청 스레드에서 꺼낸 statements 를 작업 스레드에 묶는다. 작업이 끝나면 {@link #unbind()} 로 푼다.
+   */
+  public static void bind(RequestStatements statements) {
+    if (statements != null) {
+      CURRENT.set(statements);
+    }
+  }
+
+  public static void unbind() {
+    CURRENT.remove();
+  }
+
+  public synchronized int getTotal() {
+    return total;
+  }
+
+  public synchronized Map<String, Integer> getFingerprints() {
+    return new LinkedHashMap<>(fingerprints);
+  }
+
+  /**
+   * FAIL 모드에서 예산을 넘으면 예외를 던진다. (문장은 실행되지 않는다)
+   */
+  void record(String sql) {
+    String fingerprint = SqlFingerprint.of(sql);
+    int total;
+    synchronized (this) {
+      total = ++this.total;
+      fingerprints.merge(fingerprint, 1, Integer::sum);
+    }
+    if (mode == StatementBudgetMode.FAIL && total > budget) {
+      throw new StatementBudgetExceededException(endpoint, budget, sql);
+    }
+  }
+
+  public synchronized boolean isOverBudget() {
+    return total > budget;
+  }
+
+  /**
+   * 같은 형태의 문장이 threshold 번 이상 실행됐으면 N+1 로 의심한다.
+   */
+  public synchronized List<String> repeatedFingerprints(int threshold) {
+    return fingerprints.entrySet().stream()
+        .filter(entry -> entry.getValue() >= threshold)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+}
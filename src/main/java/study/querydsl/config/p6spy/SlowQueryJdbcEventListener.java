@@ -0,0 +1,25 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * threshold 를 넘긴 문장만 바인딩된 SQL 과 호출 메서드를 만들어 {@link SlowQueryJournal} 에 넘긴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowQueryJdbcEventListener extends SimpleJdbcEventListener {
+
+  private final SlowQueryJournal slowQueryJournal;
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+    if (e == null && slowQueryJournal.isSlow(timeElapsedNanos)) {
+      slowQueryJournal.record(statementInformation.getSqlWithValues(), timeElapsedNanos, CallSite.current());
+    }
+  }
+}
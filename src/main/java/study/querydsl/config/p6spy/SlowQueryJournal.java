@@ -0,0 +1,149 @@
+package study.querydsl.config.p6spy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 느린 SQL 기록 (실행 계획 포함)
+ *
+ * threshold 이상 걸린 문장의 바인딩된 SQL 로 EXPLAIN 을 실행해 실행 계획을 남긴다.
+ * EXPLAIN 은 전용 스레드에서 p6spy 를 거치지 않는 별도 커넥션으로 실행한다. (요청 스레드는 큐에 넣기만 한다)
+ * 큐가 가득 차면 버리고 dropped 를 센다. 기록은 최근 maxEntries 건만 보관한다.
+ */
+@Slf4j
+@Component
+public class SlowQueryJournal {
+
+  private final DataSource dataSource;
+  private final long thresholdNanos;
+  private final int maxEntries;
+  private final Executor executor;
+  private final Deque<Entry> entries = new ArrayDeque<>();
+  private final LongAdder dropped = new LongAdder();
+
+  @Autowired
+  public SlowQueryJournal(DataSource dataSource,
+                          @Value("${querydsl.slow-query.threshold:200ms}") Duration threshold,
+                          @Value("${querydsl.slow-query.max-entries:100}") int maxEntries,
+                          @Value("${querydsl.slow-query.queue-capacity:100}") int queueCapacity) {
+    this(dataSource, threshold, maxEntries, newExecutor(queueCapacity));
+  }
+
+  SlowQueryJournal(DataSource dataSource, Duration threshold, int maxEntries, Executor executor) {
+    this.dataSource = dataSource instanceof DecoratedDataSource decorated ? decorated.getRealDataSource() : dataSource;
+    this.thresholdNanos = threshold.toNanos();
+    this.maxEntries = maxEntries;
+    this.executor = executor;
+  }
+
+  public boolean isSlow(long elapsedNanos) {
+    return elapsedNanos >= thresholdNanos;
+  }
+
+  /**
+   * 요청 스레드에서 호출한다. EXPLAIN 은 나중에 실행된다.
+   *
+   * @param sql    값이 바인딩된 SQL
+   * @param origin SQL 을 실행시킨 메서드 ({@link CallSite})
+   */
+  public void record(String sql, long elapsedNanos, String origin) {
+    LocalDateTime executedAt = LocalDateTime.now();
+    try {
+      executor.execute(() -> add(new Entry(executedAt, elapsedNanos / 1_000_000.0, origin,
+          SqlFingerprint.of(sql), sql, explain(sql))));
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * 최근 것부터
+   */
+  public synchronized List<Entry> entries() {
+    return new ArrayList<>(entries);
+  }
+
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor instanceof ThreadPoolExecutor pool) {
+      pool.shutdown();
+    }
+  }
+
+  private synchronized void add(Entry entry) {
+    entries.addFirst(entry);
+    while (entries.size() > maxEntries) {
+      entries.removeLast();
+    }
+  }
+
+  private String explain(String sql) {
+    if (!isExplainable(sql)) {
+      return null;
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setReadOnly(true);
+      try (Statement statement = connection.createStatement();
+           ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+        StringBuilder plan = new StringBuilder();
+        while (resultSet.next()) {
+          plan.append(resultSet.getString(1)).append('\n');
+        }
+        return plan.toString().trim();
+      }
+    } catch (SQLException e) {
+      log.debug("EXPLAIN failed: {}", sql, e);
+      return "EXPLAIN failed: " + e.getMessage();
+    }
+  }
+
+  static boolean isExplainable(String sql) {
+    String head = SqlFingerprint.of(sql);
+    return head.startsWith("select") || head.startsWith("with") || head.startsWith("insert")
+        || head.startsWith("update") || head.startsWith("delete") || head.startsWith("merge");
+  }
+
+  private static ThreadPoolExecutor newExecutor(int queueCapacity) {
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "slow-query-explain");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * @param elapsedMillis 실행 시간(ms)
+   * @param origin        SQL 을 실행시킨 메서드
+   * @param plan          H2 실행 계획 (EXPLAIN 할 수 없는 문장이면 null)
+   */
+  public record Entry(LocalDateTime executedAt, double elapsedMillis, String origin, String fingerprint,
+                      String sql, String plan) {
+  }
+}
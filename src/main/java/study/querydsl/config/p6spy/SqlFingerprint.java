@@ -0,0 +1,32 @@
+package study.querydsl.config.p6spy;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 형태(fingerprint): 주석 / 리터럴 값을 지우고 공백을 정리한 SQL
+ * 값만 다른 문장은 같은 fingerprint 가 된다. (IN 목록 길이도 무시한다)
+ */
+public final class SqlFingerprint {
+
+  private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private SqlFingerprint() {
+  }
+
+  public static String of(String sql) {
+    if (sql == null) {
+      return "";
+    }
+    String fingerprint = COMMENT.matcher(sql).replaceAll(" ");
+    fingerprint = STRING_LITERAL.matcher(fingerprint).replaceAll("?");
+    fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+    fingerprint = IN_LIST.matcher(fingerprint).replaceAll("(?)");
+    fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ");
+    return fingerprint.trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 실행된 SQL 의 소요 시간(ns)을 {@link SqlLatencyRegistry} 에 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlLatencyJdbcEventListener extends SimpleJdbcEventListener {
+
+  private final SqlLatencyRegistry sqlLatencyRegistry;
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+    sqlLatencyRegistry.record(statementInformation.getSql(), timeElapsedNanos);
+  }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.config.p6spy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL 형태({@link SqlFingerprint}) 별 실행 시간 히스토그램
+ *
+ * 형태 수는 max-shapes 로 제한한다. 넘치면 {@link #OTHER} 하나로 모은다.
+ * fingerprint 계산(정규식)을 매번 하지 않도록 원문 SQL -> fingerprint 를 같은 한도로 캐시한다.
+ */
+@Component
+public class SqlLatencyRegistry {
+
+  public static final String OTHER = "(other)";
+
+  private final int maxShapes;
+  private final ConcurrentMap<String, String> fingerprints = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  public SqlLatencyRegistry(@Value("${querydsl.sql-latency.max-shapes:1000}") int maxShapes) {
+    this.maxShapes = maxShapes;
+  }
+
+  public void record(String sql, long elapsedNanos) {
+    if (sql == null || sql.isBlank()) {
+      return;
+    }
+    histogram(fingerprint(sql)).record(elapsedNanos);
+  }
+
+  /**
+   * p99 가 큰 순서
+   */
+  public List<Stats> stats() {
+    List<Stats> stats = new ArrayList<>();
+    histograms.forEach((fingerprint, histogram) -> stats.add(Stats.of(fingerprint, histogram.snapshot())));
+    stats.sort(Comparator.comparingDouble(Stats::p99).reversed());
+    return stats;
+  }
+
+  /**
+   * 히스토그램과 fingerprint 캐시를 모두 비운다. (한도가 찬 뒤 새 형태를 다시 모을 때)
+   */
+  public void reset() {
+    histograms.clear();
+    fingerprints.clear();
+  }
+
+  private String fingerprint(String sql) {
+    String fingerprint = fingerprints.get(sql);
+    if (fingerprint != null) {
+      return fingerprint;
+    }
+    fingerprint = SqlFingerprint.of(sql);
+    // 리터럴이 박힌 SQL 은 원문이 끝없이 늘어날 수 있으니 한도까지만 캐시한다
+    if (fingerprints.size() < maxShapes * 4) {
+      fingerprints.putIfAbsent(sql, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  private LatencyHistogram histogram(String fingerprint) {
+    LatencyHistogram histogram = histograms.get(fingerprint);
+    if (histogram != null) {
+      return histogram;
+    }
+    if (histograms.size() >= maxShapes) {
+      return histograms.computeIfAbsent(OTHER, key -> new LatencyHistogram());
+    }
+    return histograms.computeIfAbsent(fingerprint, key -> new LatencyHistogram());
+  }
+
+  /**
+   * 시간 단위는 모두 마이크로초
+   */
+  public record Stats(String fingerprint, long count, double mean, double p50, double p99, double p999,
+                      double max) {
+
+    static Stats of(String fingerprint, LatencyHistogram.Snapshot snapshot) {
+      return new Stats(fingerprint, snapshot.count(), snapshot.mean(), snapshot.p50(), snapshot.p99(),
+          snapshot.p999(), snapshot.max());
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.config.p6spy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 고정 크기 lock-free 링 버퍼 (여러 생산자 / 한 소비자)
+ * 슬롯마다 sequence 를 두고 CAS 로 자리를 잡는다. 가득 차면 기다리지 않고 false 를 반환한다.
+ */
+final class SqlLogRingBuffer<E> {
+
+  private final AtomicReferenceArray<E> slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // 소비자 스레드만 변경한다
+  private volatile long head;
+
+  SqlLogRingBuffer(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * @return 가득 차서 넣지 못했으면 false
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * 소비자 스레드에서만 호출한다.
+   * @return 비어 있으면 null
+   */
+  E poll() {
+    long position = head;
+    int index = (int) (position & mask);
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    E element = slots.get(index);
+    slots.set(index, null);
+    sequences.set(index, position + mask + 1);
+    head = position + 1;
+    return element;
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  int size() {
+    return (int) Math.max(0, tail.get() - head);
+  }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.config.p6spy;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드(요청) 하나에서 실행할 수 있는 SQL 문장 수
+ * 지정하지 않으면 querydsl.statement-budget.default 를 사용한다.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+
+  int value();
+}
@@ -0,0 +1,16 @@
+package study.querydsl.config.p6spy;
+
+import lombok.Getter;
+
+@Getter
+public class StatementBudgetExceededException extends RuntimeException {
+
+  private final String endpoint;
+  private final int budget;
+
+  public StatementBudgetExceededException(String endpoint, int budget, String sql) {
+    super("SQL statement budget " + budget + " exceeded on " + endpoint + ": " + sql);
+    this.endpoint = endpoint;
+    this.budget = budget;
+  }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.config.p6spy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 컨트롤러 요청마다 SQL 문장 수를 세고, 끝나면 엔드포인트 통계에 반영한다.
+ * 엔드포인트는 "HTTP 메서드 + 매핑 패턴" 으로 구분한다. (예: GET /v3/members)
+ */
+@Component
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+  private final EndpointStatementStats endpointStatementStats;
+  private final int defaultBudget;
+  private final StatementBudgetMode mode;
+
+  public StatementBudgetInterceptor(EndpointStatementStats endpointStatementStats,
+                                    @Value("${querydsl.statement-budget.default:20}") int defaultBudget,
+                                    @Value("${querydsl.statement-budget.mode:LOG}") StatementBudgetMode mode) {
+    this.endpointStatementStats = endpointStatementStats;
+    this.defaultBudget = defaultBudget;
+    this.mode = mode;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (handler instanceof HandlerMethod handlerMethod) {
+      StatementBudget budget = handlerMethod.getMethodAnnotation(StatementBudget.class);
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+      RequestStatements.start(endpoint, budget != null ? budget.value() : defaultBudget, mode);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              Exception ex) {
+    RequestStatements statements = RequestStatements.finish();
+    if (statements != null) {
+      endpointStatementStats.record(statements);
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package study.querydsl.config.p6spy;
+
+/**
+ * 요청당 SQL 문장 수가 예산을 넘었을 때의 처리
+ */
+public enum StatementBudgetMode {
+  // 요청이 끝난 뒤 경고 로그만 남긴다
+  LOG,
+  // 예산을 넘는 문장을 실행하기 전에 StatementBudgetExceededException 을 던진다 (개발 / 테스트용)
+  FAIL
+}
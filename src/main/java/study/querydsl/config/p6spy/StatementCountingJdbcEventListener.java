@@ -0,0 +1,20 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 요청 스레드에서 실행되는 SQL 문장을 {@link RequestStatements} 에 기록한다.
+ */
+@Component
+public class StatementCountingJdbcEventListener extends SimpleJdbcEventListener {
+
+  @Override
+  public void onBeforeAnyExecute(StatementInformation statementInformation) {
+    RequestStatements current = RequestStatements.current();
+    if (current != null) {
+      current.record(statementInformation.getSql());
+    }
+  }
+}
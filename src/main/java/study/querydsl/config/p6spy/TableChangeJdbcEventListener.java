@@ -0,0 +1,91 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 실행된 DML 의 대상 테이블을 찾아서 {@link TableChangedEvent} 를 발행한다.
+ * p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록한다.
+ *
+ * 문장 실행 시점에 한 번, 그 커넥션이 commit / rollback 될 때 한 번 더 발행해서
+ * 커밋 전 데이터를 기준으로 만들어진 캐시도 지워지도록 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TableChangeJdbcEventListener extends SimpleJdbcEventListener {
+
+  // use_sql_comments 로 붙는 주석(/* ... */)을 건너뛰고 DML 대상 테이블을 찾는다
+  private static final Pattern DML_TABLE = Pattern.compile(
+      "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into)\\s+([\\w.\"]+)",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private final ApplicationEventPublisher eventPublisher;
+
+  // 커넥션 별로 아직 commit / rollback 되지 않은 변경 테이블
+  private final Map<Integer, Set<String>> pendingTables = new ConcurrentHashMap<>();
+
+  @Override
+  public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos,
+                                SQLException e) {
+    String table = changedTable(statementInformation.getSql());
+    if (table == null) {
+      return;
+    }
+
+    pendingTables.computeIfAbsent(statementInformation.getConnectionInformation().getConnectionId(),
+        id -> ConcurrentHashMap.newKeySet()).add(table);
+    eventPublisher.publishEvent(new TableChangedEvent(table));
+  }
+
+  @Override
+  public void onAfterCommit(ConnectionInformation connectionInformation, long timeElapsedNanos,
+                            SQLException e) {
+    publishPending(connectionInformation);
+  }
+
+  @Override
+  public void onAfterRollback(ConnectionInformation connectionInformation, long timeElapsedNanos,
+                              SQLException e) {
+    publishPending(connectionInformation);
+  }
+
+  @Override
+  public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+    publishPending(connectionInformation);
+  }
+
+  private void publishPending(ConnectionInformation connectionInformation) {
+    Set<String> tables = pendingTables.remove(connectionInformation.getConnectionId());
+    if (tables == null) {
+      return;
+    }
+    for (String table : tables) {
+      eventPublisher.publishEvent(new TableChangedEvent(table));
+    }
+  }
+
+  static String changedTable(String sql) {
+    if (sql == null) {
+      return null;
+    }
+    Matcher matcher = DML_TABLE.matcher(sql);
+    if (!matcher.find()) {
+      return null;
+    }
+    String table = matcher.group(1).replace("\"", "").toLowerCase(Locale.ROOT);
+    int schemaEnd = table.lastIndexOf('.');
+    return schemaEnd < 0 ? table : table.substring(schemaEnd + 1);
+  }
+}
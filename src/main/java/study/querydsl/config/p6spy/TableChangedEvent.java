@@ -0,0 +1,8 @@
+package study.querydsl.config.p6spy;
+
+/**
+ * insert / update / delete 문이 실행된 테이블
+ * 엔티티 변경(flush)과 Querydsl 벌크 update / delete 모두 SQL 로 나가므로 p6spy 에서 한 번에 감지한다.
+ */
+public record TableChangedEvent(String table) {
+}
@@ -5,11 +5,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.stream.IntStream;
 
 @Profile("local")
 @Component
@@ -28,6 +32,9 @@ public class InitMember {
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+
     @Transactional
     public void init() {
       Team teamA = new Team("teamA");
@@ -36,10 +43,8 @@ public class InitMember {
       em.persist(teamA);
       em.persist(teamB);
 
-      for (int i=0; i < 100; i++) {
-        Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-        em.persist(new Member("member"+i, i, selectedTeam));
-      }
+      memberJpaRepository.saveAll(IntStream.range(0, 100)
+          .mapToObj(i -> Member.forBulkInsert("member" + i, i, i % 2 == 0 ? teamA : teamB)));
     }
   }
 }
@@ -1,56 +1,136 @@
 package study.querydsl.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.config.p6spy.StatementBudget;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
-import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.PageOptions;
+import study.querydsl.repository.support.PagingStrategy;
+import study.querydsl.service.ExportFormat;
+import study.querydsl.service.MemberExportService;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
-  private final MemberJpaRepository memberJpaRepository;
   private final MemberRepository memberRepository;
 
   private final MemberTestRepository memberTestRepository;
+  private final MemberExportService memberExportService;
 
   @GetMapping("/v1/members")
+  @StatementBudget(3)
   public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-    return memberJpaRepository.search(condition);
+    // 조회가 일부 조건에 몰리므로 결과 캐시가 있는 커스텀 리포지토리를 사용한다
+    return memberRepository.search(condition);
+  }
+
+  @GetMapping("/v1/members/export")
+  @StatementBudget(3)
+  public void exportMemberV1(MemberSearchCondition condition,
+                             @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                             HttpServletResponse response) throws IOException {
+    response.setContentType(format.getContentType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + format.getExtension());
+    memberExportService.export(condition, format, response.getWriter());
   }
 
   @GetMapping("/v2/members")
+  @StatementBudget(3)
   public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
     return memberRepository.searchPageSimple(condition, pageable);
   }
 
   @GetMapping("/v3/members")
-  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-    return memberRepository.searchPageComplex(condition, pageable);
+  @StatementBudget(4)
+  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                            @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+                                            @RequestParam(defaultValue = "false") boolean concurrentCount,
+                                            @RequestParam(defaultValue = "OFFSET") PagingStrategy pagingStrategy) {
+    return memberRepository.searchPageComplex(condition, pageable,
+        pageOptions(countStrategy, concurrentCount).withPagingStrategy(pagingStrategy));
   }
 
   @GetMapping("/v3-sort/members")
-  public Page<MemberTeamDto> searchMemberV3_usingSort(MemberSearchCondition condition, Pageable pageable) {
-    return memberRepository.searchPageComplexUsingSort(condition, pageable);
+  @StatementBudget(4)
+  public Page<MemberTeamDto> searchMemberV3_usingSort(MemberSearchCondition condition, Pageable pageable,
+                                                      @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+                                                      @RequestParam(defaultValue = "false") boolean concurrentCount,
+                                                      @RequestParam(defaultValue = "OFFSET") PagingStrategy pagingStrategy) {
+    return memberRepository.searchPageComplexUsingSort(condition, pageable,
+        pageOptions(countStrategy, concurrentCount).withPagingStrategy(pagingStrategy));
   }
 
   @GetMapping("/v4/members")
+  @StatementBudget(3)
   public Page<MemberDto> searchMemberV4_sort_no_support(MemberSearchCondition condition, Pageable pageable) {
-    return memberTestRepository.searchPageByApplyPage(condition, pageable).map(MemberDto::new);
+    // MemberDto 로 변환만 하므로 엔티티는 읽기 전용으로 조회한다
+    return memberTestRepository.searchPageByApplyPage(condition, pageable, true).map(MemberDto::new);
   }
 
   @GetMapping("/v5/members")
-  public Page<MemberDto> searchMemberV5_Querydsl4RepositorySupport_sort_support(MemberSearchCondition condition, Pageable pageable) {
-    return memberTestRepository.applyPagination2(condition, pageable).map(MemberDto::new);
+  @StatementBudget(3)
+  public Page<MemberDto> searchMemberV5_Querydsl4RepositorySupport_sort_support(MemberSearchCondition condition, Pageable pageable,
+                                                                               @RequestParam(defaultValue = "EXACT") CountStrategy countStrategy,
+                                                                               @RequestParam(defaultValue = "false") boolean concurrentCount) {
+    return memberTestRepository.applyPagination2(condition, pageable,
+        pageOptions(countStrategy, concurrentCount).withReadOnly(true)).map(MemberDto::new);
+  }
+
+  @GetMapping("/v6/members")
+  @StatementBudget(2)
+  public CursorPage<MemberTeamDto> searchMemberV6_cursor(MemberSearchCondition condition,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) MemberSortKey sortKey,
+                                                         @RequestParam(defaultValue = "20") int size) {
+    if (size < 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be greater than zero");
+    }
+    return memberRepository.searchByCursor(condition, memberCursor(cursor, sortKey),
+        Math.min(size, MemberCursor.MAX_SIZE));
   }
 
+  /**
+   * 커서가 있으면 커서의 정렬 키를 사용한다. sortKey 를 함께 보냈는데 커서와 다르면 잘못된 요청이다.
+   */
+  private MemberCursor memberCursor(String cursor, MemberSortKey sortKey) {
+    if (cursor == null) {
+      return MemberCursor.first(sortKey != null ? sortKey : MemberSortKey.MEMBER_ID);
+    }
+    MemberCursor memberCursor;
+    try {
+      memberCursor = MemberCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+    }
+    if (sortKey != null && sortKey != memberCursor.getSortKey()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "sortKey " + sortKey + " does not match cursor sort key " + memberCursor.getSortKey());
+    }
+    return memberCursor;
+  }
+
+  private PageOptions pageOptions(CountStrategy countStrategy, boolean concurrentCount) {
+    return PageOptions.of(countStrategy).withConcurrentCount(concurrentCount);
+  }
 }
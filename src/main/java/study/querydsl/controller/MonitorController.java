@@ -0,0 +1,152 @@
+package study.querydsl.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.p6spy.AsyncSqlLogger;
+import study.querydsl.config.p6spy.CallSiteStats;
+import study.querydsl.config.p6spy.EndpointStatementStats;
+import study.querydsl.config.p6spy.SlowQueryJournal;
+import study.querydsl.config.p6spy.SqlLatencyRegistry;
+import study.querydsl.repository.MemberIndexAdvisor;
+import study.querydsl.repository.MemberSearchShapeCache;
+import study.querydsl.repository.support.CountQueryCache;
+import study.querydsl.repository.support.QueryPhaseStats;
+import study.querydsl.repository.support.SearchResultCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 성능 관련 내부 지표 조회
+ */
+@RestController
+@RequiredArgsConstructor
+public class MonitorController {
+
+  private final CountQueryCache countQueryCache;
+  private final MemberSearchShapeCache memberSearchShapeCache;
+  private final SearchResultCache searchResultCache;
+  private final EntityManagerFactory entityManagerFactory;
+  private final EndpointStatementStats endpointStatementStats;
+  private final ObjectProvider<AsyncSqlLogger> asyncSqlLogger;
+  private final SqlLatencyRegistry sqlLatencyRegistry;
+  private final SlowQueryJournal slowQueryJournal;
+  private final CallSiteStats callSiteStats;
+  private final QueryPhaseStats queryPhaseStats;
+  private final MemberIndexAdvisor memberIndexAdvisor;
+
+  @GetMapping("/monitor/count-cache")
+  public CountQueryCache.Stats countCache() {
+    return countQueryCache.stats();
+  }
+
+  @GetMapping("/monitor/query-shape-cache")
+  public MemberSearchShapeCache.Stats queryShapeCache() {
+    return memberSearchShapeCache.stats();
+  }
+
+  @GetMapping("/monitor/search-cache")
+  public SearchResultCache.Stats searchCache() {
+    return searchResultCache.stats();
+  }
+
+  /**
+   * 엔드포인트(매핑) 별 요청당 SQL 문장 수, 예산 초과 / N+1 의심 횟수
+   */
+  @GetMapping("/monitor/statements")
+  public Map<String, EndpointStatementStats.Stats> statements() {
+    return endpointStatementStats.stats();
+  }
+
+  /**
+   * SQL 형태별 실행 시간 분포 (p50 / p99 / p999 / max, 마이크로초), p99 가 큰 순서
+   */
+  @GetMapping("/monitor/sql-latency")
+  public List<SqlLatencyRegistry.Stats> sqlLatency() {
+    return sqlLatencyRegistry.stats();
+  }
+
+  @DeleteMapping("/monitor/sql-latency")
+  public void resetSqlLatency() {
+    sqlLatencyRegistry.reset();
+  }
+
+  /**
+   * SQL 을 실행시킨 메서드(클래스.메서드) 별 문장 수와 DB 시간 합계, 합계가 큰 순서
+   */
+  @GetMapping("/monitor/call-sites")
+  public List<CallSiteStats.Stats> callSites() {
+    return callSiteStats.stats();
+  }
+
+  /**
+   * 리포지토리 메서드 별 단계(렌더링 / SQL 변환 / 실행 / 결과 변환 / count) 평균 시간 (querydsl.phase-timing.sample-rate)
+   */
+  @GetMapping("/monitor/query-phases")
+  public Map<String, QueryPhaseStats.Stats> queryPhases() {
+    return queryPhaseStats.stats();
+  }
+
+  /**
+   * 관측된 검색 형태로 만든 member 인덱스 추천, 절약 시간 추정치가 큰 순서 (요청할 때마다 테이블을 읽어 계산한다)
+   */
+  @GetMapping("/monitor/index-advice")
+  public List<MemberIndexAdvisor.Recommendation> indexAdvice() {
+    return memberIndexAdvisor.advise();
+  }
+
+  @GetMapping(value = "/monitor/index-advice/ddl", produces = MediaType.TEXT_PLAIN_VALUE)
+  public String indexAdviceDdl() {
+    return memberIndexAdvisor.advise().stream()
+        .map(recommendation -> recommendation.ddl() + ";")
+        .collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * 느린 SQL 기록 (최근 것부터, 실행 계획과 호출 메서드 포함)
+   */
+  @GetMapping("/monitor/slow-queries")
+  public List<SlowQueryJournal.Entry> slowQueries() {
+    return slowQueryJournal.entries();
+  }
+
+  /**
+   * 비동기 SQL 로그의 수집 / 샘플링 제외 / 버림 / 출력 건수 (p6spy.async.enabled=false 면 null)
+   */
+  @GetMapping("/monitor/sql-log")
+  public AsyncSqlLogger.Stats sqlLog() {
+    AsyncSqlLogger logger = asyncSqlLogger.getIfAvailable();
+    return logger == null ? null : logger.stats();
+  }
+
+  /**
+   * Hibernate 2차 캐시 region 별 통계 (Team 엔티티, 팀 이름 쿼리 캐시)
+   */
+  @GetMapping("/monitor/second-level-cache")
+  public List<CacheRegionStats> secondLevelCache() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    return List.of(
+        CacheRegionStats.of("team", statistics.getDomainDataRegionStatistics("team")),
+        CacheRegionStats.of("team-id-by-name", statistics.getQueryRegionStatistics("team-id-by-name")));
+  }
+
+  public record CacheRegionStats(String region, long hits, long misses, long puts, long elementsInMemory) {
+
+    static CacheRegionStats of(String region, CacheRegionStatistics statistics) {
+      if (statistics == null) {
+        return new CacheRegionStats(region, 0, 0, 0, 0);
+      }
+      return new CacheRegionStats(region, statistics.getHitCount(), statistics.getMissCount(),
+          statistics.getPutCount(), statistics.getElementCountInMemory());
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 커서 기반 페이지 결과
+ * nextCursor 가 null 이면 마지막 페이지
+ */
+@Getter
+public class CursorPage<T> {
+  private final List<T> content;
+  private final int size;
+  private final boolean hasNext;
+  private final String nextCursor;
+
+  public CursorPage(List<T> content, boolean hasNext, String nextCursor) {
+    this.content = content;
+    this.size = content.size();
+    this.hasNext = hasNext;
+    this.nextCursor = nextCursor;
+  }
+}
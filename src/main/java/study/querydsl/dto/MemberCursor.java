@@ -0,0 +1,83 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 마지막으로 조회한 (정렬 키 값, memberId) 위치
+ * 클라이언트에는 내부 구조를 숨긴 opaque 문자열로만 전달한다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+  // 한 번에 조회할 수 있는 최대 건수 (Pageable 의 기본 max-page-size 와 같다)
+  public static final int MAX_SIZE = 2000;
+
+  private static final char DELIMITER = '|';
+  // 정렬 키 값이 있으면 앞에 붙인다. 값이 null 인 경우(빈 문자열)와 "" 인 경우를 구분하기 위해 사용
+  private static final char VALUE_PREFIX = '+';
+
+  private final MemberSortKey sortKey;
+  private final String lastValue;
+  private final Long lastMemberId;
+
+  /**
+   * 첫 페이지 조회용 커서
+   */
+  public static MemberCursor first(MemberSortKey sortKey) {
+    return new MemberCursor(sortKey, null, null);
+  }
+
+  public static MemberCursor after(MemberSortKey sortKey, MemberTeamDto last) {
+    String lastValue = switch (sortKey) {
+      case MEMBER_ID -> null;
+      case USERNAME -> last.getUsername();
+      case AGE -> String.valueOf(last.getAge());
+    };
+    return new MemberCursor(sortKey, lastValue, last.getMemberId());
+  }
+
+  public boolean isFirst() {
+    return lastMemberId == null;
+  }
+
+  public String encode() {
+    String value = lastValue == null ? "" : VALUE_PREFIX + lastValue;
+    String raw = sortKey.name() + DELIMITER + value + DELIMITER + lastMemberId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static MemberCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      // username 에 구분자가 들어갈 수 있으므로 처음과 마지막 구분자로 자른다
+      int first = raw.indexOf(DELIMITER);
+      int last = raw.lastIndexOf(DELIMITER);
+      if (first < 0 || first == last) {
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+      }
+      MemberSortKey sortKey = MemberSortKey.valueOf(raw.substring(0, first));
+      String value = raw.substring(first + 1, last);
+      if (!value.isEmpty() && value.charAt(0) != VALUE_PREFIX) {
+        throw new IllegalArgumentException("Invalid cursor value");
+      }
+      String lastValue = value.isEmpty() ? null : value.substring(1);
+      Long lastMemberId = Long.valueOf(raw.substring(last + 1));
+      if (sortKey == MemberSortKey.AGE) {
+        if (lastValue == null) {
+          throw new IllegalArgumentException("Missing age in cursor");
+        }
+        // 숫자가 아니면 NumberFormatException (IllegalArgumentException) 으로 잘못된 커서가 된다
+        Integer.parseInt(lastValue);
+      }
+      return new MemberCursor(sortKey, sortKey == MemberSortKey.MEMBER_ID ? null : lastValue, lastMemberId);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
 
 @Data
 public class MemberSearchCondition {
@@ -10,4 +11,17 @@ public class MemberSearchCondition {
   private String teamName;
   private Integer ageGoe;
   private Integer ageLoe;
+
+  /**
+   * 검색 결과가 같은 조건이 같은 값이 되도록 정리한 사본 (캐시 key 용)
+   * 빈 문자열은 조건이 없는 것과 같으므로 null 로 바꾼다.
+   */
+  public MemberSearchCondition normalize() {
+    MemberSearchCondition normalized = new MemberSearchCondition();
+    normalized.setUsername(StringUtils.hasText(username) ? username : null);
+    normalized.setTeamName(StringUtils.hasText(teamName) ? teamName : null);
+    normalized.setAgeGoe(ageGoe);
+    normalized.setAgeLoe(ageLoe);
+    return normalized;
+  }
 }
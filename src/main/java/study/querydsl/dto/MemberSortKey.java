@@ -0,0 +1,11 @@
+package study.querydsl.dto;
+
+/**
+ * 커서(keyset) 페이징에서 사용할 수 있는 정렬 키
+ * 동일한 값이 여러 개일 수 있으므로 항상 memberId 를 보조 정렬 키로 함께 사용한다.
+ */
+public enum MemberSortKey {
+  MEMBER_ID,
+  USERNAME,
+  AGE
+}
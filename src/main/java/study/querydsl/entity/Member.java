@@ -11,7 +11,9 @@ import lombok.*;
 public class Member {
 
   @Id
-  @GeneratedValue
+  // 대량 저장 시 시퀀스 조회를 줄이기 위해 100개씩 미리 할당 (batch size 와 맞춤)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+  @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 100)
   @Column(name = "member_id")
   private Long id;
 
@@ -40,6 +42,17 @@ public class Member {
     }
   }
 
+  /**
+   * 대량 저장용: 연관관계 주인(team_id)만 설정하고 team.members 에는 추가하지 않는다.
+   * 같은 팀 객체로 많은 회원을 만들어도 team.members 가 커지거나 초기화되지 않는다.
+   * team 은 em.getReference 로 얻은 프록시여도 된다.
+   */
+  public static Member forBulkInsert(String username, int age, Team team) {
+    Member member = new Member(username, age);
+    member.team = team;
+    return member;
+  }
+
   public void changeTeam(Team team) {
     this.team = team;
     team.getMembers().add(this);
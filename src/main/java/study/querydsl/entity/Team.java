@@ -2,11 +2,16 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// 2차 캐시 (ehcache.xml 의 team region)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -14,7 +19,9 @@ import java.util.List;
 public class Team {
 
   @Id
-  @GeneratedValue
+  // 대량 저장 시 시퀀스 조회를 줄이기 위해 100개씩 미리 할당 (batch size 와 맞춤)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+  @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 100)
   @Column(name = "team_id")
   private Long id;
   private String name;
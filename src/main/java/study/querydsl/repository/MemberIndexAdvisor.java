@@ -0,0 +1,387 @@
+package study.querydsl.repository;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.config.p6spy.SqlLatencyRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * member 테이블 인덱스 추천
+ *
+ * 실행 중에 본 검색 형태(어떤 컬럼을 = / 범위로 거르고 어떤 컬럼으로 정렬하는지)를 두 곳에서 모은다.
+ * - MemberSearchCondition / Sort 사용 ({@link #record})
+ * - SQL fingerprint ({@link SqlLatencyRegistry}) 중 member 테이블 조건
+ * 둘은 같은 호출을 볼 수 있으므로 형태별 호출 수는 합하지 않고 큰 쪽을 쓴다.
+ *
+ * 형태마다 (=, 정렬, 범위) 순서로 후보 인덱스를 만들고, 이미 있는 인덱스로 처리되는 후보는 뺀다.
+ * 같은 조건의 조회를 실행해 보고 H2 EXPLAIN 이 tableScan 이면 추천한다.
+ * 절약 시간 추정: 호출 수 x 현재 조회 시간 x (1 - 인덱스로 읽을 비율)
+ * 읽을 비율은 = 조건은 1 / distinct 값 수, 범위 조건은 1/3, 범위 없이 정렬이 있으면 한 페이지 만큼으로 본다.
+ * 조회는 p6spy 를 거치지 않는 별도 커넥션으로 하고, 요청할 때만 계산한다. (테이블 전체를 몇 번 읽는다)
+ *
+ * 정렬은 Member 의 알려진 속성(SORT_COLUMNS)만 형태에 넣고, 기록하는 형태 수는 max-shapes 로 제한한다.
+ * (요청 파라미터로 들어온 정렬 속성 이름이 그대로 쌓이지 않도록)
+ */
+@Component
+public class MemberIndexAdvisor {
+
+  private static final String TABLE = "member";
+  private static final int PAGE_SIZE = 20;
+  private static final double RANGE_SELECTIVITY = 1.0 / 3;
+  // 정렬 속성 -> 컬럼
+  private static final Map<String, String> SORT_COLUMNS = Map.of(
+      "id", "member_id",
+      "username", "username",
+      "age", "age",
+      "team.id", "team_id");
+
+  private static final Pattern MEMBER_ALIAS = Pattern.compile("\\bmember\\s+(?:as\\s+)?(\\w+)");
+  private static final Pattern CLAUSE_END = Pattern.compile(" (?:group by|having|order by|offset|fetch|limit|for update)\\b");
+  private static final Pattern ORDER_BY_END = Pattern.compile(" (?:offset|fetch|limit|for update)\\b");
+
+  private final DataSource dataSource;
+  private final SqlLatencyRegistry sqlLatencyRegistry;
+  private final int maxShapes;
+  private final ConcurrentMap<Shape, LongAdder> conditionShapes = new ConcurrentHashMap<>();
+
+  public MemberIndexAdvisor(DataSource dataSource, SqlLatencyRegistry sqlLatencyRegistry,
+                            @Value("${querydsl.index-advisor.max-shapes:100}") int maxShapes) {
+    this.dataSource = dataSource instanceof DecoratedDataSource decorated ? decorated.getRealDataSource() : dataSource;
+    this.sqlLatencyRegistry = sqlLatencyRegistry;
+    this.maxShapes = maxShapes;
+  }
+
+  /**
+   * 검색 조건과 정렬의 형태만 센다. (값은 보지 않는다)
+   */
+  public void record(MemberSearchCondition condition, Sort sort) {
+    Set<String> equality = new TreeSet<>();
+    Set<String> range = new TreeSet<>();
+    if (StringUtils.hasText(condition.getUsername())) {
+      equality.add("username");
+    }
+    if (StringUtils.hasText(condition.getTeamName())) {
+      // 팀 이름은 팀 id 목록으로 바꿔서 member.team_id in (...) 로 거른다
+      equality.add("team_id");
+    }
+    if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+      range.add("age");
+    }
+    Set<String> order = new LinkedHashSet<>();
+    for (Sort.Order o : sort) {
+      String column = SORT_COLUMNS.get(o.getProperty());
+      if (column == null) {
+        // 모르는 속성부터는 인덱스 정렬 순서로 쓸 수 없으므로 앞부분만 남긴다
+        break;
+      }
+      order.add(column);
+    }
+    Shape shape = Shape.of(equality, range, order);
+    if (shape.isEmpty()) {
+      return;
+    }
+    LongAdder calls = conditionShapes.get(shape);
+    if (calls == null) {
+      if (conditionShapes.size() >= maxShapes) {
+        return;
+      }
+      calls = conditionShapes.computeIfAbsent(shape, key -> new LongAdder());
+    }
+    calls.increment();
+  }
+
+  Set<Shape> recordedShapes() {
+    return Set.copyOf(conditionShapes.keySet());
+  }
+
+  /**
+   * 절약 시간 추정치가 큰 순서
+   */
+  public List<Recommendation> advise() {
+    Map<Shape, Long> shapes = observedShapes();
+    if (shapes.isEmpty()) {
+      return List.of();
+    }
+
+    Map<List<String>, Long> candidates = new LinkedHashMap<>();
+    shapes.forEach((shape, calls) -> candidates.merge(shape.indexColumns(), calls, Long::sum));
+
+    List<Recommendation> recommendations = new ArrayList<>();
+    try (Connection connection = dataSource.getConnection()) {
+      Map<String, Integer> columnTypes = columnTypes(connection);
+      List<List<String>> indexes = existingIndexes(connection);
+      Map<String, Long> distinct = new HashMap<>();
+      long rows = count(connection, "select count(*) from " + TABLE);
+
+      for (Map.Entry<List<String>, Long> candidate : candidates.entrySet()) {
+        List<String> columns = candidate.getKey();
+        if (!columnTypes.keySet().containsAll(columns) || isCovered(columns, indexes)) {
+          continue;
+        }
+        Shape shape = shapes.keySet().stream()
+                            .filter(s -> s.indexColumns().equals(columns))
+                            .findFirst()
+                            .orElseThrow();
+        String sql = probeSql(shape, columnTypes);
+        String plan = explain(connection, sql);
+        if (!plan.toLowerCase(Locale.ROOT).contains("tablescan")) {
+          continue;
+        }
+
+        double currentMillis = time(connection, sql);
+        double readRatio = readRatio(connection, shape, rows, distinct);
+        long calls = candidate.getValue();
+        recommendations.add(new Recommendation(columns, ddl(columns), calls, currentMillis,
+            calls * currentMillis * (1 - readRatio), plan));
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to build index advice", e);
+    }
+
+    recommendations.sort(Comparator.comparingDouble(Recommendation::estimatedSavedMillis).reversed());
+    return recommendations;
+  }
+
+  private Map<Shape, Long> observedShapes() {
+    Map<Shape, Long> shapes = new HashMap<>();
+    conditionShapes.forEach((shape, calls) -> shapes.put(shape, calls.sum()));
+    for (SqlLatencyRegistry.Stats stats : sqlLatencyRegistry.stats()) {
+      Shape shape = shapeOf(stats.fingerprint());
+      if (shape != null && !shape.isEmpty()) {
+        shapes.merge(shape, stats.count(), Math::max);
+      }
+    }
+    return shapes;
+  }
+
+  /**
+   * SQL fingerprint 에서 member 테이블 컬럼 조건과 정렬을 꺼낸다. member 를 조회하지 않으면 null
+   */
+  static Shape shapeOf(String fingerprint) {
+    if (!fingerprint.startsWith("select")) {
+      return null;
+    }
+    Matcher alias = MEMBER_ALIAS.matcher(fingerprint);
+    if (!alias.find()) {
+      return null;
+    }
+    String column = Pattern.quote(alias.group(1)) + "\\.(\\w+)";
+
+    Set<String> equality = new TreeSet<>();
+    Set<String> range = new TreeSet<>();
+    int where = fingerprint.indexOf(" where ");
+    if (where >= 0) {
+      String predicates = until(fingerprint.substring(where + 7), CLAUSE_END);
+      Matcher predicate = Pattern.compile(column + "\\s*(=|in\\s*\\(|>=|<=|<>|>|<|between|like)").matcher(predicates);
+      while (predicate.find()) {
+        String operator = predicate.group(2);
+        if (operator.equals("=") || operator.startsWith("in")) {
+          equality.add(predicate.group(1));
+        } else if (!operator.equals("<>")) {
+          range.add(predicate.group(1));
+        }
+      }
+    }
+
+    Set<String> order = new LinkedHashSet<>();
+    int orderBy = fingerprint.indexOf(" order by ");
+    if (orderBy >= 0) {
+      Matcher sort = Pattern.compile(column).matcher(until(fingerprint.substring(orderBy + 10), ORDER_BY_END));
+      while (sort.find()) {
+        order.add(sort.group(1));
+      }
+    }
+    return Shape.of(equality, range, order);
+  }
+
+  private static String until(String sql, Pattern end) {
+    Matcher matcher = end.matcher(sql);
+    return matcher.find() ? sql.substring(0, matcher.start()) : sql;
+  }
+
+  private String probeSql(Shape shape, Map<String, Integer> columnTypes) {
+    List<String> predicates = new ArrayList<>();
+    shape.equality().forEach(column -> predicates.add(column + " = " + literal(columnTypes.get(column))));
+    shape.range().forEach(column -> predicates.add(column + " >= " + literal(columnTypes.get(column))));
+    StringBuilder sql = new StringBuilder("select member_id from ").append(TABLE);
+    if (!predicates.isEmpty()) {
+      sql.append(" where ").append(String.join(" and ", predicates));
+    }
+    if (!shape.sort().isEmpty()) {
+      sql.append(" order by ").append(String.join(", ", shape.sort()));
+    }
+    return sql.append(" limit ").append(PAGE_SIZE).toString();
+  }
+
+  private static String literal(int type) {
+    return switch (type) {
+      case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+          Types.REAL, Types.FLOAT, Types.DOUBLE -> "0";
+      default -> "'0'";
+    };
+  }
+
+  private double readRatio(Connection connection, Shape shape, long rows, Map<String, Long> distinct)
+      throws SQLException {
+    double ratio = 1;
+    for (String column : shape.equality()) {
+      Long values = distinct.get(column);
+      if (values == null) {
+        values = count(connection, "select count(distinct " + column + ") from " + TABLE);
+        distinct.put(column, values);
+      }
+      ratio /= Math.max(1, values);
+    }
+    if (!shape.range().isEmpty()) {
+      ratio *= RANGE_SELECTIVITY;
+    } else if (!shape.sort().isEmpty() && rows > 0) {
+      ratio = Math.min(ratio, PAGE_SIZE / (double) rows);
+    }
+    return Math.min(1, ratio);
+  }
+
+  /**
+   * 세 번 실행한 것 중 가장 빠른 시간(ms)
+   */
+  private static double time(Connection connection, String sql) throws SQLException {
+    long best = Long.MAX_VALUE;
+    try (Statement statement = connection.createStatement()) {
+      for (int i = 0; i < 3; i++) {
+        long start = System.nanoTime();
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+          while (resultSet.next()) {
+            // 결과를 끝까지 읽는다
+          }
+        }
+        best = Math.min(best, System.nanoTime() - start);
+      }
+    }
+    return best / 1_000_000.0;
+  }
+
+  private static String explain(Connection connection, String sql) throws SQLException {
+    StringBuilder plan = new StringBuilder();
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery("explain " + sql)) {
+      while (resultSet.next()) {
+        plan.append(resultSet.getString(1)).append('\n');
+      }
+    }
+    return plan.toString().trim();
+  }
+
+  private static long count(Connection connection, String sql) throws SQLException {
+    try (Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static Map<String, Integer> columnTypes(Connection connection) throws SQLException {
+    Map<String, Integer> types = new HashMap<>();
+    try (ResultSet columns = connection.getMetaData().getColumns(null, null, TABLE.toUpperCase(Locale.ROOT), null)) {
+      while (columns.next()) {
+        types.put(columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), columns.getInt("DATA_TYPE"));
+      }
+    }
+    return types;
+  }
+
+  /**
+   * 이미 있는 인덱스 (PK, FK 인덱스 포함) 별 컬럼 목록
+   */
+  private static List<List<String>> existingIndexes(Connection connection) throws SQLException {
+    Map<String, Map<Short, String>> indexes = new HashMap<>();
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet index = metaData.getIndexInfo(null, null, TABLE.toUpperCase(Locale.ROOT), false, true)) {
+      while (index.next()) {
+        String name = index.getString("INDEX_NAME");
+        String column = index.getString("COLUMN_NAME");
+        if (name != null && column != null) {
+          indexes.computeIfAbsent(name, key -> new TreeMap<>())
+                 .put(index.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+    return indexes.values().stream()
+                  .map(columns -> List.copyOf(columns.values()))
+                  .toList();
+  }
+
+  private static boolean isCovered(List<String> columns, List<List<String>> indexes) {
+    return indexes.stream().anyMatch(index -> index.size() >= columns.size()
+        && index.subList(0, columns.size()).equals(columns));
+  }
+
+  private static String ddl(List<String> columns) {
+    return "create index idx_" + TABLE + "_" + String.join("_", columns) + " on " + TABLE
+        + " (" + String.join(", ", columns) + ")";
+  }
+
+  /**
+   * 검색 형태. = 조건 컬럼, 범위 조건 컬럼은 이름 순, 정렬 컬럼은 정렬 순서대로
+   */
+  public record Shape(List<String> equality, List<String> range, List<String> sort) {
+
+    static Shape of(Set<String> equality, Set<String> range, Set<String> sort) {
+      Set<String> rangeOnly = new TreeSet<>(range);
+      rangeOnly.removeAll(equality);
+      return new Shape(List.copyOf(equality), List.copyOf(rangeOnly), List.copyOf(sort));
+    }
+
+    boolean isEmpty() {
+      return equality.isEmpty() && range.isEmpty() && sort.isEmpty();
+    }
+
+    /**
+     * = 조건, 정렬, 범위 조건 순서. 범위 조건 뒤의 컬럼은 인덱스로 거를 수 없으므로 범위는 하나만 넣는다.
+     */
+    List<String> indexColumns() {
+      Set<String> columns = new LinkedHashSet<>(equality);
+      columns.addAll(sort);
+      if (!range.isEmpty()) {
+        columns.add(range.get(0));
+      }
+      return List.copyOf(columns);
+    }
+  }
+
+  /**
+   * @param columns              인덱스 컬럼 (순서대로)
+   * @param calls                관측된 호출 수
+   * @param currentMillis        지금 같은 조건으로 조회하는 데 걸리는 시간(ms)
+   * @param estimatedSavedMillis 관측된 호출 기준으로 줄어들 것으로 추정되는 시간 합계(ms)
+   * @param currentPlan          지금의 H2 실행 계획
+   */
+  public record Recommendation(List<String> columns, String ddl, long calls, double currentMillis,
+                               double estimatedSavedMillis, String currentPlan) {
+  }
+}
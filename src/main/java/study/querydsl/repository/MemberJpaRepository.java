@@ -4,6 +4,7 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
@@ -11,9 +12,16 @@ import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkInsertResult;
+import study.querydsl.repository.support.BulkInserter;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -22,16 +30,48 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberJpaRepository {
   private final EntityManager em;
   private final JPAQueryFactory queryFactory;
+  private final BulkInserter bulkInserter;
 
-  public MemberJpaRepository(EntityManager em) {
+  public MemberJpaRepository(EntityManager em, BulkInserter bulkInserter) {
     this.em = em;
     this.queryFactory = new JPAQueryFactory(em);
+    this.bulkInserter = bulkInserter;
   }
 
   public void save(Member member) {
     em.persist(member);
   }
 
+  /**
+   * JDBC batch 로 대량 저장한다. 저장 후 영속성 컨텍스트 전체가 비워진다. ({@link BulkInserter#insert})
+   * 회원은 {@link Member#forBulkInsert} 로 만든다. (team.members 에 쌓이지 않도록 FK 쪽만 설정)
+   */
+  public BulkInsertResult saveAll(Stream<Member> members) {
+    return bulkInserter.insert(members);
+  }
+
+  /**
+   * 회원들의 팀을 IN 쿼리 한 번으로 영속성 컨텍스트에 올린다. (이후 getTeam() 접근 시 추가 쿼리 없음)
+   * 이미 초기화된 팀은 제외한다.
+   */
+  public void preloadTeams(Collection<Member> members) {
+    Set<Long> teamIds = members.stream()
+        .map(Member::getTeam)
+        .filter(team -> team != null && !Hibernate.isInitialized(team))
+        .map(team -> Hibernate.getLazyInitializer(team) != null
+            ? (Long) Hibernate.getLazyInitializer(team).getIdentifier()
+            : team.getId())
+        .collect(Collectors.toSet());
+    if (teamIds.isEmpty()) {
+      return;
+    }
+
+    queryFactory
+        .selectFrom(team)
+        .where(team.id.in(teamIds))
+        .fetch();
+  }
+
   public Optional<Member> findById(Long id) {
     return Optional.ofNullable(em.find(Member.class, id));
   }
@@ -2,16 +2,26 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.PageOptions;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
   List<MemberTeamDto> search(MemberSearchCondition condition);
+  Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize);
   Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
   Page<MemberTeamDto> searchPageComplexOld(MemberSearchCondition condition, Pageable pageable);
   Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+  CountedPage<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, PageOptions options);
   Page<MemberTeamDto> searchPageComplexQueryDslVer5(MemberSearchCondition condition, Pageable pageable);
+  CountedPage<MemberTeamDto> searchPageComplexQueryDslVer5(MemberSearchCondition condition, Pageable pageable, PageOptions options);
   Page<MemberTeamDto> searchPageComplexUsingSort(MemberSearchCondition condition, Pageable pageable);
+  CountedPage<MemberTeamDto> searchPageComplexUsingSort(MemberSearchCondition condition, Pageable pageable, PageOptions options);
+  CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
 }
@@ -8,32 +8,97 @@ import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
-
+import study.querydsl.repository.support.CountQueryBuilder;
+import study.querydsl.repository.support.CountQueryCache;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.DeferredJoinFetcher;
+import study.querydsl.repository.support.PageCounter;
+import study.querydsl.repository.support.PageOptions;
+import study.querydsl.repository.support.PagingStrategy;
+import study.querydsl.repository.support.QueryPhases;
+import study.querydsl.repository.support.SearchResultCache;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+  private final EntityManager em;
   private final JPAQueryFactory queryFactory;
-
-  public MemberRepositoryImpl(EntityManager em) {
+  private final PageCounter pageCounter;
+  private final MemberSearchShapeCache searchShapeCache;
+  private final SearchResultCache resultCache;
+  private final MemberSqlRepository sqlRepository;
+  private final TeamJpaRepository teamRepository;
+  private final MemberIndexAdvisor indexAdvisor;
+  // search / searchPageComplex 를 querydsl-sql(네이티브 SQL) 로 조회
+  private final boolean nativeSqlSearch;
+  private final boolean nativeSqlSearchPageComplex;
+
+  public MemberRepositoryImpl(EntityManager em, PageCounter pageCounter,
+                              MemberSearchShapeCache searchShapeCache, SearchResultCache resultCache,
+                              MemberSqlRepository sqlRepository, TeamJpaRepository teamRepository,
+                              MemberIndexAdvisor indexAdvisor,
+                              @Value("${querydsl.native-sql.search:false}") boolean nativeSqlSearch,
+                              @Value("${querydsl.native-sql.search-page-complex:false}") boolean nativeSqlSearchPageComplex) {
+    this.em = em;
     this.queryFactory = new JPAQueryFactory(em);
+    this.pageCounter = pageCounter;
+    this.searchShapeCache = searchShapeCache;
+    this.resultCache = resultCache;
+    this.sqlRepository = sqlRepository;
+    this.teamRepository = teamRepository;
+    this.indexAdvisor = indexAdvisor;
+    this.nativeSqlSearch = nativeSqlSearch;
+    this.nativeSqlSearchPageComplex = nativeSqlSearchPageComplex;
   }
 
   @Override
   public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return resultCache.get(resultKey("search", condition, null, null), () -> loadSearch(condition),
+        MemberRepositoryImpl::weigh, MemberRepositoryImpl::copyRows);
+  }
+
+  // 캐시에서 꺼낸 결과는 SQL 을 실행하지 않으므로 인덱스 추천용 형태도 여기서(캐시 미스일 때만) 센다
+  private List<MemberTeamDto> loadSearch(MemberSearchCondition condition) {
+    indexAdvisor.record(condition, Sort.unsorted());
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return new ArrayList<>();
+    }
+    // 조건 형태별로 만들어 둔 JPQL 에 파라미터만 바인딩한다
+    return nativeSqlSearch
+        ? QueryPhases.fetch(() -> sqlRepository.search(condition, teamIds, 0, -1))
+        : QueryPhases.fetch(() -> searchShapeCache.search(condition, teamIds, 0, -1));
+  }
+
+  @Override
+  public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+    // forward-only 커서로 fetchSize 건씩 가져온다. 사용 후 반드시 close 해야 한다. (트랜잭션 안에서 사용)
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return Stream.empty();
+    }
     return queryFactory
         .select(new QMemberTeamDto(
             member.id.as("memberId"),
@@ -46,15 +111,22 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .join(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
-        .fetch();
+        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .stream();
   }
 
   @Override
   public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    indexAdvisor.record(condition, Sort.unsorted());
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return Page.empty(pageable);
+    }
     QueryResults<MemberTeamDto> results = queryFactory
         .select(new QMemberTeamDto(
             member.id.as("memberId"),
@@ -67,7 +139,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .join(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
@@ -84,6 +156,11 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
   @Override
   public Page<MemberTeamDto> searchPageComplexOld(MemberSearchCondition condition,
                                                   Pageable pageable) {
+    indexAdvisor.record(condition, Sort.unsorted());
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return Page.empty(pageable);
+    }
 
     // content, totalcount 쿼리 분리
 
@@ -99,7 +176,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .join(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
@@ -113,7 +190,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .leftJoin(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
@@ -124,10 +201,29 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
   @Override
   public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    return searchPageComplex(condition, pageable, PageOptions.DEFAULT);
+  }
+
+  @Override
+  public CountedPage<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                      PageOptions options) {
+    return resultCache.get(resultKey("searchPageComplex", condition, pageable, options),
+        () -> loadPageComplex(condition, pageable, options), page -> weigh(page.getContent()),
+        page -> page.map(MemberRepositoryImpl::copy));
+  }
+
+  private CountedPage<MemberTeamDto> loadPageComplex(MemberSearchCondition condition, Pageable pageable,
+                                                     PageOptions options) {
+    indexAdvisor.record(condition, Sort.unsorted());
+    // 팀 id 는 content / count 에서 같이 쓰도록 한 번만 조회한다
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return emptyPage(pageable);
+    }
 
     // content, totalcount 쿼리 분리
 
-    List<MemberTeamDto> content = queryFactory
+    JPAQuery<MemberTeamDto> contentQuery = queryFactory
         .select(new QMemberTeamDto(
             member.id.as("memberId"),
             member.username,
@@ -139,24 +235,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .join(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         )
         .offset(pageable.getOffset())
-        .limit(pageable.getPageSize())
-        .fetch();
+        .limit(pageable.getPageSize());
 
-    JPAQuery<Member> countQuery = queryFactory
-        .select(member)
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        );
+    // count 쿼리는 content 쿼리에서 만든다 (select, order by 제거, 참조하지 않는 to-one join 제거)
+    JPAQuery<Long> countQuery = CountQueryBuilder.from(em, contentQuery);
 
 
 //        return new PageImpl<>(content,pageable, total);
@@ -165,39 +252,68 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     //count 쿼리가 생략 가능한 경우 생략해서 처리
     //페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
     //마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
-    return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+    //같은 조건으로 페이지만 넘기는 경우 count 는 캐시에서 가져온다
+    //content 는 조건 형태별로 캐시된 JPQL 로 조회한다 (contentQuery 는 count / deferred join 에서만 사용)
+    //searchPageComplex 가 네이티브 SQL 대상이면 content 는 querydsl-sql 로 조회한다
+    Supplier<List<MemberTeamDto>> content;
+    if (options.getPagingStrategy() != PagingStrategy.OFFSET) {
+      content = content(contentQuery, options);
+    } else if (nativeSqlSearchPageComplex) {
+      content = () -> QueryPhases.fetch(
+          () -> sqlRepository.search(condition, teamIds, pageable.getOffset(), pageable.getPageSize()));
+    } else {
+      content = () -> QueryPhases.fetch(
+          () -> searchShapeCache.search(condition, teamIds, pageable.getOffset(), pageable.getPageSize()));
+    }
+    return pageCounter.getPage(content, pageable, options, countKey("searchPageComplex", condition),
+        countQuery, countQuery::fetchOne);
   }
 
   @Override
   public Page<MemberTeamDto> searchPageComplexQueryDslVer5(MemberSearchCondition condition,
                                                            Pageable pageable) {
-    List<MemberTeamDto> content = queryFactory
+    return searchPageComplexQueryDslVer5(condition, pageable, PageOptions.DEFAULT);
+  }
+
+  @Override
+  public CountedPage<MemberTeamDto> searchPageComplexQueryDslVer5(MemberSearchCondition condition,
+                                                                  Pageable pageable, PageOptions options) {
+    indexAdvisor.record(condition, Sort.unsorted());
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return emptyPage(pageable);
+    }
+    JPAQuery<MemberTeamDto> contentQuery = queryFactory
         .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age,
             team.id.as("teamId"), team.name.as("teamName")))
         .from(member)
         .leftJoin(member.team, team)
         .where(
-            usernameEq(condition.getUsername()), teamNameEq(condition.getTeamName()),
+            usernameEq(condition.getUsername()), teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()), ageLoe(condition.getAgeLoe())
         )
         .offset(pageable.getOffset())
-        .limit(pageable.getPageSize())
-        .fetch();
+        .limit(pageable.getPageSize());
 
-    JPAQuery<Long> countQuery = queryFactory
-        .select(member.count())
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()), teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()), ageLoe(condition.getAgeLoe())
-        );
-    return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    JPAQuery<Long> countQuery = CountQueryBuilder.from(em, contentQuery);
+    return pageCounter.getPage(content(contentQuery, options), pageable, options, countKey("searchPageComplexQueryDslVer5", condition),
+        countQuery, countQuery::fetchOne);
   }
 
   @Override
   public Page<MemberTeamDto> searchPageComplexUsingSort(MemberSearchCondition condition,
                                                         Pageable pageable) {
+    return searchPageComplexUsingSort(condition, pageable, PageOptions.DEFAULT);
+  }
+
+  @Override
+  public CountedPage<MemberTeamDto> searchPageComplexUsingSort(MemberSearchCondition condition,
+                                                               Pageable pageable, PageOptions options) {
+    indexAdvisor.record(condition, pageable.getSort());
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return emptyPage(pageable);
+    }
 
     // content, totalcount 쿼리 분리
 
@@ -213,7 +329,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         .join(member.team, team)
         .where(
             usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
+            teamIdIn(teamIds),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         );
@@ -226,21 +342,11 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
               pathBuilder.get(o.getProperty())));
     }
 
-    List<MemberTeamDto> content = searchPageComplexWhereIncludePart
+    JPAQuery<MemberTeamDto> contentQuery = searchPageComplexWhereIncludePart
         .offset(pageable.getOffset())
-        .limit(pageable.getPageSize())
-        .fetch();
+        .limit(pageable.getPageSize());
 
-    JPAQuery<Member> countQuery = queryFactory
-        .select(member)
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        );
+    JPAQuery<Long> countQuery = CountQueryBuilder.from(em, contentQuery);
 
 
 //        return new PageImpl<>(content,pageable, total);
@@ -253,23 +359,166 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 //    참고: 정렬( Sort )은조건이조금만 복잡해져도 Pageable 의 Sort 기능을 사용하기어렵다.
 //    루트엔티티 범위를 넘어가는동적 정렬기능이 필요하면
 //    스프링데이터 페이징이제공하는 Sort 를 사용하기보다는 파라미터를받아서직접 처리하는것을 권장한다.
-    return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+    return pageCounter.getPage(content(contentQuery, options), pageable, options, countKey("searchPageComplexUsingSort", condition),
+        countQuery, countQuery::fetchOne);
+  }
+
+  /**
+   * DEFERRED_JOIN 이면 id 만 먼저 페이징한 뒤 그 id 들로 content 를 조회한다.
+   */
+  private Supplier<List<MemberTeamDto>> content(JPAQuery<MemberTeamDto> contentQuery, PageOptions options) {
+    if (options.getPagingStrategy() == PagingStrategy.DEFERRED_JOIN) {
+      return () -> QueryPhases.fetch(() -> DeferredJoinFetcher.fetch(em, contentQuery, MemberTeamDto::getMemberId));
+    }
+    return () -> QueryPhases.fetch(contentQuery);
+  }
+
+  private SearchResultCache.Key resultKey(String query, MemberSearchCondition condition,
+                                          Pageable pageable, PageOptions options) {
+    // 동시 count 여부는 결과에 영향이 없으므로 key 에서 뺀다
+    return new SearchResultCache.Key(MemberRepositoryImpl.class.getSimpleName() + "." + query, condition.normalize(), pageable,
+        options != null ? options.withConcurrentCount(false) : null);
+  }
+
+  // 결과 캐시용 추정 크기: 행 객체 + Long 2개 + 문자열 2개
+  private static long weigh(List<MemberTeamDto> rows) {
+    long bytes = 64;
+    for (MemberTeamDto row : rows) {
+      bytes += 112 + stringBytes(row.getUsername()) + stringBytes(row.getTeamName());
+    }
+    return bytes;
   }
 
+  private static long stringBytes(String value) {
+    return value == null ? 0 : 40 + value.length() * 2L;
+  }
+
+  // 결과 캐시용 사본: MemberTeamDto 는 변경 가능하므로 행도 복사한다
+  private static List<MemberTeamDto> copyRows(List<MemberTeamDto> rows) {
+    return rows.stream().map(MemberRepositoryImpl::copy).toList();
+  }
 
+  private static MemberTeamDto copy(MemberTeamDto row) {
+    return new MemberTeamDto(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), row.getTeamName());
+  }
+
+  private CountQueryCache.Key countKey(String query, MemberSearchCondition condition) {
+    return new CountQueryCache.Key(MemberRepositoryImpl.class.getSimpleName() + "." + query, condition.normalize());
+  }
+
+  @Override
+  public CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor,
+                                                  int size) {
+    Assert.isTrue(size > 0, "Size must be greater than zero!");
+    Assert.isTrue(size <= MemberCursor.MAX_SIZE, "Size must not be greater than " + MemberCursor.MAX_SIZE + "!");
+    indexAdvisor.record(condition, cursorSort(cursor));
+    List<Long> teamIds = teamIds(condition);
+    if (noTeam(teamIds)) {
+      return new CursorPage<>(new ArrayList<>(), false, null);
+    }
+
+    // offset 대신 마지막으로 본 (정렬 키, memberId) 이후부터 읽는다 (keyset / seek 페이징)
+    // 앞 페이지의 row 를 스캔 후 버리지 않으므로 페이지 깊이와 상관없이 조회 비용이 일정하다.
+    // 다음 페이지 존재 여부는 count 쿼리 대신 size + 1 건을 조회해서 판단한다.
+    List<MemberTeamDto> result = queryFactory
+        .select(new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+        ))
+        .from(member)
+        .join(member.team, team)
+        .where(
+            usernameEq(condition.getUsername()),
+            teamIdIn(teamIds),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe()),
+            afterCursor(cursor)
+        )
+        .orderBy(cursorOrder(cursor))
+        .limit(size + 1)
+        .fetch();
+
+    boolean hasNext = result.size() > size;
+    List<MemberTeamDto> content = hasNext ? new ArrayList<>(result.subList(0, size)) : result;
+    String nextCursor = hasNext
+        ? MemberCursor.after(cursor.getSortKey(), content.get(content.size() - 1)).encode()
+        : null;
+
+    return new CursorPage<>(content, hasNext, nextCursor);
+  }
+
+  private BooleanExpression afterCursor(MemberCursor cursor) {
+    if (cursor.isFirst()) {
+      return null;
+    }
+
+    Long lastMemberId = cursor.getLastMemberId();
+    return switch (cursor.getSortKey()) {
+      case MEMBER_ID -> member.id.gt(lastMemberId);
+      // username 이 null 인 회원은 가장 앞에 정렬된다 (cursorOrder 의 nullsFirst)
+      case USERNAME -> cursor.getLastValue() == null
+          ? member.username.isNull().and(member.id.gt(lastMemberId)).or(member.username.isNotNull())
+          : member.username.gt(cursor.getLastValue())
+                           .or(member.username.eq(cursor.getLastValue()).and(member.id.gt(lastMemberId)));
+      case AGE -> {
+        int lastAge = Integer.parseInt(cursor.getLastValue());
+        yield member.age.gt(lastAge)
+                        .or(member.age.eq(lastAge).and(member.id.gt(lastMemberId)));
+      }
+    };
+  }
+
+  // 인덱스 추천용 정렬 형태 (cursorOrder 와 같은 순서)
+  private Sort cursorSort(MemberCursor cursor) {
+    return switch (cursor.getSortKey()) {
+      case MEMBER_ID -> Sort.by("id");
+      case USERNAME -> Sort.by("username", "id");
+      case AGE -> Sort.by("age", "id");
+    };
+  }
+
+  private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+    return switch (cursor.getSortKey()) {
+      case MEMBER_ID -> new OrderSpecifier<?>[]{member.id.asc()};
+      case USERNAME -> new OrderSpecifier<?>[]{member.username.asc().nullsFirst(), member.id.asc()};
+      case AGE -> new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+    };
+  }
+
+  // 검색 조건은 MemberSearchShapeCache 와 같은 MemberSearchPredicates 로 만든다
   private BooleanExpression usernameEq(String username) {
-    return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    return MemberSearchPredicates.usernameEq(username);
+  }
+
+  private BooleanExpression teamIdIn(List<Long> teamIds) {
+    return MemberSearchPredicates.teamIdIn(teamIds);
+  }
+
+  /**
+   * 팀 이름 조건을 캐시된 조회로 팀 id 목록으로 바꾼다. 조건이 없으면 null
+   * 팀 이름은 member.team_id 로 거르므로 호출마다 한 번만 조회해서 content / count 에 같이 쓴다.
+   */
+  private List<Long> teamIds(MemberSearchCondition condition) {
+    return StringUtils.hasText(condition.getTeamName()) ? teamRepository.findIdsByName(condition.getTeamName()) : null;
+  }
+
+  // 그런 이름의 팀이 없으면 결과가 없으므로 content / count 를 조회하지 않는다
+  private static boolean noTeam(List<Long> teamIds) {
+    return teamIds != null && teamIds.isEmpty();
   }
 
-  private BooleanExpression teamNameEq(String teamName) {
-    return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+  private static CountedPage<MemberTeamDto> emptyPage(Pageable pageable) {
+    return new CountedPage<>(new ArrayList<>(), pageable, 0, CountStrategy.EXACT, false);
   }
 
   private BooleanExpression ageGoe(Integer ageGoe) {
-    return ageGoe != null ? member.age.goe(ageGoe) : null;
+    return MemberSearchPredicates.ageGoe(ageGoe);
   }
 
   private BooleanExpression ageLoe(Integer ageLoe) {
-    return ageLoe != null ? member.age.loe(ageLoe) : null;
+    return MemberSearchPredicates.ageLoe(ageLoe);
   }
 }
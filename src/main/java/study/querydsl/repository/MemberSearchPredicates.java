@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 검색 조건 ({@link MemberRepositoryImpl}, {@link MemberSearchShapeCache} 공용)
+ * 조건이 없으면 null 을 반환하므로 where 에 그대로 넘긴다.
+ */
+final class MemberSearchPredicates {
+
+  private MemberSearchPredicates() {
+  }
+
+  /**
+   * where 절 조건 순서: username, 팀 id, ageGoe, ageLoe
+   * @param teamIds 팀 이름으로 찾은 팀 id 목록. null 이면 팀 조건이 없다.
+   */
+  static Predicate[] of(MemberSearchCondition condition, List<Long> teamIds) {
+    return new Predicate[]{
+        usernameEq(condition.getUsername()),
+        teamIdIn(teamIds),
+        ageGoe(condition.getAgeGoe()),
+        ageLoe(condition.getAgeLoe())
+    };
+  }
+
+  static BooleanExpression usernameEq(String username) {
+    return StringUtils.hasText(username) ? member.username.eq(username) : null;
+  }
+
+  // 팀 이름 대신 팀 id 로 member.team_id 를 거른다 (team 테이블을 읽지 않는다)
+  static BooleanExpression teamIdIn(List<Long> teamIds) {
+    return teamIds != null ? member.team.id.in(teamIds) : null;
+  }
+
+  static BooleanExpression ageGoe(Integer ageGoe) {
+    return ageGoe != null ? member.age.goe(ageGoe) : null;
+  }
+
+  static BooleanExpression ageLoe(Integer ageLoe) {
+    return ageLoe != null ? member.age.loe(ageLoe) : null;
+  }
+}
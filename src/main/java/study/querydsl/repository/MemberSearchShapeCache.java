@@ -0,0 +1,197 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 검색 JPQL 을 조건 형태(shape)별로 한 번만 만들어서 재사용한다.
+ *
+ * 검색 조건 4개의 유무 조합은 16가지 뿐이므로, 조건 형태별로 Querydsl 표현식 생성과 JPQL 직렬화를
+ * 한 번만 하고 이후에는 파라미터만 바인딩한다. JPQL 문자열이 항상 같으므로 Hibernate 의 쿼리 플랜 캐시도 계속 적중한다.
+ *
+ * team 은 join 하지 않는다. 팀 조건은 member.team_id 로 거르고, 팀 이름은 Team 2차 캐시에서 채운다.
+ */
+@Component
+public class MemberSearchShapeCache {
+
+  // 직렬화용 자리 표시 값. 서로 다른 값이어야 각 조건이 별도의 파라미터(?n)로 직렬화된다.
+  private static final String USERNAME_PLACEHOLDER = "\u0000username";
+  // 원소가 하나면 in 이 = 로 바뀌므로 두 개를 넣는다
+  private static final List<Long> TEAM_IDS_PLACEHOLDER = List.of(Long.MIN_VALUE, Long.MIN_VALUE + 1);
+  private static final int AGE_GOE_PLACEHOLDER = Integer.MIN_VALUE;
+  private static final int AGE_LOE_PLACEHOLDER = Integer.MIN_VALUE + 1;
+
+  private static final int USERNAME = 1;
+  private static final int TEAM_NAME = 1 << 1;
+  private static final int AGE_GOE = 1 << 2;
+  private static final int AGE_LOE = 1 << 3;
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TeamJpaRepository teamRepository;
+  private final ConcurrentMap<Integer, Shape> shapes = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder renderNanos = new LongAdder();
+
+  public MemberSearchShapeCache(EntityManager em, TeamJpaRepository teamRepository) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.teamRepository = teamRepository;
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    // 팀 이름은 캐시된 조회로 팀 id 목록으로 바꿔서 바인딩한다. 없는 팀이면 조회할 필요가 없다
+    List<Long> teamIds = null;
+    if (StringUtils.hasText(condition.getTeamName())) {
+      teamIds = teamRepository.findIdsByName(condition.getTeamName());
+      if (teamIds.isEmpty()) {
+        return new ArrayList<>();
+      }
+    }
+    return search(condition, teamIds, 0, -1);
+  }
+
+  /**
+   * @param teamIds 팀 이름 조건으로 찾은 팀 id 목록. 팀 이름 조건이 없으면 null (빈 목록은 호출 전에 걸러낸다)
+   * @param limit   0 보다 작으면 전체 조회
+   */
+  public List<MemberTeamDto> search(MemberSearchCondition condition, List<Long> teamIds, long offset, int limit) {
+    Assert.isTrue(teamIds == null || !teamIds.isEmpty(), "Team ids must not be empty");
+    int mask = mask(condition, teamIds);
+    Shape shape = shape(mask);
+
+    TypedQuery<Object[]> query = em.createQuery(shape.jpql(), Object[].class);
+    int position = 1;
+    if ((mask & USERNAME) != 0) {
+      query.setParameter(position++, condition.getUsername());
+    }
+    if ((mask & TEAM_NAME) != 0) {
+      query.setParameter(position++, teamIds);
+    }
+    if ((mask & AGE_GOE) != 0) {
+      query.setParameter(position++, condition.getAgeGoe());
+    }
+    if ((mask & AGE_LOE) != 0) {
+      query.setParameter(position, condition.getAgeLoe());
+    }
+    if (offset > 0) {
+      query.setFirstResult(Math.toIntExact(offset));
+    }
+    if (limit >= 0) {
+      query.setMaxResults(limit);
+    }
+
+    List<Object[]> rows = query.getResultList();
+    Set<Long> rowTeamIds = new HashSet<>();
+    for (Object[] row : rows) {
+      rowTeamIds.add((Long) row[3]);
+    }
+    Map<Long, String> teamNames = teamRepository.findNamesByIds(rowTeamIds);
+
+    List<MemberTeamDto> result = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      Long teamId = (Long) row[3];
+      result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], teamId,
+          teamNames.get(teamId)));
+    }
+    return result;
+  }
+
+  /**
+   * savedMicros 는 적중 횟수 x 평균 렌더링 시간으로 추정한다.
+   * 첫 렌더링은 클래스 로딩 등으로 느리므로 형태별 첫 렌더링 시간을 그대로 쓰면 절약 시간이 부풀려진다.
+   */
+  public Stats stats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long renderTotal = renderNanos.sum();
+    long saved = missCount > 0 ? hitCount * (renderTotal / missCount) : 0;
+    return new Stats(shapes.size(), hitCount, missCount, renderTotal / 1_000, saved / 1_000);
+  }
+
+  private Shape shape(int mask) {
+    Shape shape = shapes.get(mask);
+    if (shape != null) {
+      hits.increment();
+      return shape;
+    }
+    misses.increment();
+    return shapes.computeIfAbsent(mask, this::render);
+  }
+
+  /**
+   * Querydsl 로 조건 형태에 맞는 쿼리를 만들고 JPQL 로 직렬화한다.
+   * 조건은 MemberRepositoryImpl 과 같은 {@link MemberSearchPredicates} 에 자리 표시 값을 넣어서 만든다.
+   * where 절의 조건 순서대로 ?1, ?2 ... 가 붙으므로 search 에서 같은 순서로 바인딩한다.
+   */
+  private Shape render(int mask) {
+    long start = System.nanoTime();
+    MemberSearchCondition placeholders = new MemberSearchCondition();
+    if ((mask & USERNAME) != 0) {
+      placeholders.setUsername(USERNAME_PLACEHOLDER);
+    }
+    if ((mask & AGE_GOE) != 0) {
+      placeholders.setAgeGoe(AGE_GOE_PLACEHOLDER);
+    }
+    if ((mask & AGE_LOE) != 0) {
+      placeholders.setAgeLoe(AGE_LOE_PLACEHOLDER);
+    }
+    // member.team is not null: 팀이 없는 회원은 제외한다 (team inner join 과 같은 결과, team_id 만 본다)
+    String jpql = queryFactory
+        .select(member.id, member.username, member.age, member.team.id)
+        .from(member)
+        .where(member.team.isNotNull())
+        .where(MemberSearchPredicates.of(placeholders, (mask & TEAM_NAME) != 0 ? TEAM_IDS_PLACEHOLDER : null))
+        .toString();
+    long elapsed = System.nanoTime() - start;
+    renderNanos.add(elapsed);
+
+    int parameterCount = Integer.bitCount(mask);
+    if (parameterCount > 0 && (!jpql.contains("?" + parameterCount) || jpql.contains("?" + (parameterCount + 1)))) {
+      throw new IllegalStateException("Unexpected parameter layout for search shape " + mask + ": " + jpql);
+    }
+    return new Shape(jpql);
+  }
+
+  private int mask(MemberSearchCondition condition, List<Long> teamIds) {
+    int mask = 0;
+    if (StringUtils.hasText(condition.getUsername())) {
+      mask |= USERNAME;
+    }
+    if (teamIds != null) {
+      mask |= TEAM_NAME;
+    }
+    if (condition.getAgeGoe() != null) {
+      mask |= AGE_GOE;
+    }
+    if (condition.getAgeLoe() != null) {
+      mask |= AGE_LOE;
+    }
+    return mask;
+  }
+
+  public record Stats(int shapes, long hits, long misses, long renderMicros, long savedMicros) {
+  }
+
+  private record Shape(String jpql) {
+  }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql 로 조회하는 회원 검색 (JPQL 변환, 엔티티 / 결과 변환 없이 ResultSet 에서 바로 DTO 를 만든다)
+ * MemberRepositoryImpl 의 search 와 같은 결과를 반환한다.
+ *
+ * 영속성 컨텍스트를 거치지 않으므로 JPQL 처럼 조회 전 auto flush 가 일어나지 않는다.
+ * 쓰기 트랜잭션 안에서 호출되면 조회 전에 직접 flush 해서 아직 반영되지 않은 변경도 보이게 한다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+
+  private final SQLQueryFactory queryFactory;
+  private final EntityManager em;
+  private final TeamJpaRepository teamRepository;
+
+  public MemberSqlRepository(SQLQueryFactory queryFactory, EntityManager em, TeamJpaRepository teamRepository) {
+    this.queryFactory = queryFactory;
+    this.em = em;
+    this.teamRepository = teamRepository;
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return search(condition, 0, -1);
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition, long offset, long limit) {
+    // 팀 이름은 캐시된 조회로 팀 id 목록으로 바꾼다. 없는 팀이면 조회할 필요가 없다
+    List<Long> teamIds = null;
+    if (StringUtils.hasText(condition.getTeamName())) {
+      teamIds = teamRepository.findIdsByName(condition.getTeamName());
+      if (teamIds.isEmpty()) {
+        return new ArrayList<>();
+      }
+    }
+    return search(condition, teamIds, offset, limit);
+  }
+
+  /**
+   * @param teamIds 팀 이름 조건으로 찾은 팀 id 목록. 팀 이름 조건이 없으면 null (빈 목록은 호출 전에 걸러낸다)
+   * @param limit   0 보다 작으면 전체 조회
+   */
+  public List<MemberTeamDto> search(MemberSearchCondition condition, List<Long> teamIds, long offset, long limit) {
+    Assert.isTrue(teamIds == null || !teamIds.isEmpty(), "Team ids must not be empty");
+    SQLQuery<MemberTeamDto> query = searchQuery(condition, teamIds);
+    if (offset > 0) {
+      query.offset(offset);
+    }
+    if (limit >= 0) {
+      query.limit(limit);
+    }
+    return query.fetch();
+  }
+
+  // 팀 이름 projection 을 위해 team 은 join 하지만, 팀 조건은 member.team_id 로 거른다
+  private SQLQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition, List<Long> teamIds) {
+    // 읽기 전용 트랜잭션에서는 변경이 없으므로 flush 하지 않는다
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      em.flush();
+    }
+    return queryFactory
+        .select(new QMemberTeamDto(
+            member.memberId,
+            member.username,
+            member.age,
+            team.teamId,
+            team.name
+        ))
+        .from(member)
+        .join(member.teamFk, team)
+        .where(
+            usernameEq(condition.getUsername()),
+            teamIdIn(teamIds),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        );
+  }
+
+  private BooleanExpression usernameEq(String username) {
+    return StringUtils.hasText(username) ? member.username.eq(username) : null;
+  }
+
+  private BooleanExpression teamIdIn(List<Long> teamIds) {
+    return teamIds != null ? member.teamId.in(teamIds) : null;
+  }
+
+  private BooleanExpression ageGoe(Integer ageGoe) {
+    return ageGoe != null ? member.age.goe(ageGoe) : null;
+  }
+
+  private BooleanExpression ageLoe(Integer ageLoe) {
+    return ageLoe != null ? member.age.loe(ageLoe) : null;
+  }
+}
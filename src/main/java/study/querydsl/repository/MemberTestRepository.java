@@ -9,6 +9,9 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.FetchPlan;
+import study.querydsl.repository.support.PageOptions;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -34,6 +37,13 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
   }
 
   public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
+    return searchPageByApplyPage(condition, pageable, false);
+  }
+
+  /**
+   * @param readOnly 화면 표시용으로만 쓰는 경우 true (엔티티를 읽기 전용으로 조회)
+   */
+  public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable, boolean readOnly) {
     JPAQuery<Member> query = selectFrom(member)
         .leftJoin(member.team, team)
         .where(usernameEq(condition.getUsername()),
@@ -41,9 +51,12 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe()));
 
+    if (readOnly) {
+      readOnly(query);
+    }
     List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
-    return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
+    return PageableExecutionUtils.getPage(content, pageable, countQueryOf(query)::fetchOne);
   }
 
   public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
@@ -58,8 +71,13 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
   }
 
   public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
+    return applyPagination2(condition, pageable, PageOptions.DEFAULT);
+  }
+
+  public CountedPage<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable,
+                                             PageOptions options) {
 
-    return applyPagination(pageable, contentQuery -> contentQuery.selectFrom(member)
+    return applyPagination(pageable, options, contentQuery -> contentQuery.selectFrom(member)
                                                                  .leftJoin(member.team, team)
                                                                  .where(usernameEq(condition.getUsername()),
                                                                      teamNameEq(condition.getTeamName()),
@@ -75,6 +93,20 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     );
   }
 
+  /**
+   * 회원 페이지를 팀과 함께 조회 (id 페이징 후 entity graph 로 팀 로딩)
+   */
+  public CountedPage<Member> applyPaginationWithTeam(MemberSearchCondition condition, Pageable pageable,
+                                                    PageOptions options) {
+    return applyPagination(pageable, options, FetchPlan.of(member.team), query -> query.selectFrom(member)
+                                                                                      .leftJoin(member.team, team)
+                                                                                      .where(usernameEq(condition.getUsername()),
+                                                                                          teamNameEq(condition.getTeamName()),
+                                                                                          ageGoe(condition.getAgeGoe()),
+                                                                                          ageLoe(condition.getAgeLoe()))
+    );
+  }
+
   private BooleanExpression usernameEq(String username) {
     return StringUtils.hasText(username) ? member.username.eq(username) : null;
   }
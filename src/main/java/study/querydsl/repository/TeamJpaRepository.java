@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkInsertResult;
+import study.querydsl.repository.support.BulkInserter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+public class TeamJpaRepository {
+
+  // ehcache.xml 의 쿼리 캐시 region
+  static final String TEAM_ID_BY_NAME_REGION = "team-id-by-name";
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final BulkInserter bulkInserter;
+
+  public TeamJpaRepository(EntityManager em, BulkInserter bulkInserter) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.bulkInserter = bulkInserter;
+  }
+
+  /**
+   * JDBC batch 로 대량 저장한다. 저장 후 영속성 컨텍스트 전체가 비워진다. ({@link BulkInserter#insert})
+   * 저장한 팀은 준영속 상태지만 식별자는 채워져 있으므로 회원 저장 시 em.getReference 로 참조할 수 있다.
+   */
+  public BulkInsertResult saveAll(Stream<Team> teams) {
+    return bulkInserter.insert(teams);
+  }
+
+  /**
+   * 팀 이름으로 팀 id 조회 (이름은 유일하지 않으므로 목록)
+   * 쿼리 캐시에 저장되고, team 테이블이 바뀌면 Hibernate 가 자동으로 무효화한다.
+   */
+  public List<Long> findIdsByName(String name) {
+    return queryFactory
+        .select(team.id)
+        .from(team)
+        .where(team.name.eq(name))
+        .setHint(HibernateHints.HINT_CACHEABLE, true)
+        .setHint(HibernateHints.HINT_CACHE_REGION, TEAM_ID_BY_NAME_REGION)
+        .fetch();
+  }
+
+  /**
+   * 팀 id 로 팀 이름 조회
+   * 영속성 컨텍스트나 2차 캐시에 있는 팀은 DB 를 조회하지 않고, 나머지만 IN 쿼리 한 번으로 가져온다.
+   */
+  public Map<Long, String> findNamesByIds(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    List<Team> teams = em.unwrap(Session.class)
+                         .byMultipleIds(Team.class)
+                         .enableSessionCheck(true)
+                         .multiLoad(new ArrayList<>(ids));
+    Map<Long, String> names = new HashMap<>();
+    for (Team found : teams) {
+      if (found != null) {
+        names.put(found.getId(), found.getName());
+      }
+    }
+    return names;
+  }
+
+  /**
+   * 팀들의 members 컬렉션을 fetch join 한 번으로 초기화한다. (이후 getMembers() 접근 시 추가 쿼리 없음)
+   * teams 는 영속 상태여야 한다.
+   */
+  public void preloadMembers(Collection<Team> teams) {
+    List<Long> teamIds = teams.stream()
+        .filter(t -> !Hibernate.isInitialized(t.getMembers()))
+        .map(Team::getId)
+        .toList();
+    if (teamIds.isEmpty()) {
+      return;
+    }
+
+    queryFactory
+        .selectFrom(team)
+        .distinct()
+        .leftJoin(team.members, member).fetchJoin()
+        .where(team.id.in(teamIds))
+        .fetch();
+  }
+}
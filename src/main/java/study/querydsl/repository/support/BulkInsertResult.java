@@ -0,0 +1,14 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+
+/**
+ * 대량 저장 결과 (건수, 소요 시간)
+ */
+public record BulkInsertResult(long rows, Duration elapsed) {
+
+  public double rowsPerSecond() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+  }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 엔티티 대량 저장
+ *
+ * - batchSize 건씩 JDBC batch 로 insert 한다. (hibernate.order_inserts 로 테이블별로 묶인다)
+ * - batchSize 건마다 flush / clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ *   호출한 쪽이 들고 있던 엔티티도 준영속 상태가 되므로, 연관된 엔티티(팀)는 먼저 저장해 두고 참조만 넘긴다.
+ * - 연관관계는 FK 쪽만 설정해서 넘긴다. (Member.forBulkInsert)
+ *   양방향 편의 메서드로 만들면 팀의 컬렉션에 저장한 엔티티가 모두 쌓여서 clear 해도 메모리가 줄지 않는다.
+ * - 식별자는 시퀀스를 allocationSize 단위로 미리 받아서 건마다 시퀀스를 조회하지 않는다.
+ */
+@Slf4j
+@Component
+public class BulkInserter {
+
+  private final EntityManager em;
+  private final int batchSize;
+
+  public BulkInserter(EntityManager em, @Value("${querydsl.bulk-insert.batch-size:100}") int batchSize) {
+    this.em = em;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * entities 를 모두 저장하고 stream 을 닫는다.
+   *
+   * 호출한 쪽의 트랜잭션에 참여한다. (앞서 저장한 팀을 FK 로 참조할 수 있도록 별도 트랜잭션을 쓰지 않는다)
+   * 따라서 flush 후 호출한 쪽 영속성 컨텍스트 전체를 clear 한다. 호출 전에 관리하던 엔티티도 준영속 상태가 되고
+   * 이후 변경은 dirty checking 되지 않으므로, 필요하면 다시 조회해서 사용한다.
+   */
+  @Transactional
+  public BulkInsertResult insert(Stream<?> entities) {
+    Session session = em.unwrap(Session.class);
+    Integer previousBatchSize = session.getJdbcBatchSize();
+    session.setJdbcBatchSize(batchSize);
+
+    long start = System.nanoTime();
+    long rows = 0;
+    try (entities) {
+      Iterator<?> iterator = entities.iterator();
+      while (iterator.hasNext()) {
+        em.persist(iterator.next());
+        if (++rows % batchSize == 0) {
+          em.flush();
+          em.clear();
+        }
+      }
+      em.flush();
+      em.clear();
+    } finally {
+      session.setJdbcBatchSize(previousBatchSize);
+    }
+
+    BulkInsertResult result = new BulkInsertResult(rows, Duration.ofNanos(System.nanoTime() - start));
+    log.info("bulk insert rows={}, elapsed={}ms, rows/sec={}",
+        rows, result.elapsed().toMillis(), String.format("%.0f", result.rowsPerSecond()));
+    return result;
+  }
+}
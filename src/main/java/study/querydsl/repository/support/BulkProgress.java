@@ -0,0 +1,14 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+
+/**
+ * chunk 단위 벌크 연산 진행 상황
+ *
+ * @param chunks       커밋된 chunk 수
+ * @param affectedRows 커밋된 chunk 에서 변경된 행 수
+ * @param lastId       마지막으로 커밋된 chunk 의 식별자 상한 (이 값 다음부터 재개한다)
+ * @param elapsed      시작 후 경과 시간
+ */
+public record BulkProgress(long chunks, long affectedRows, long lastId, Duration elapsed) {
+}
@@ -0,0 +1,20 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+
+/**
+ * chunk 단위 벌크 연산 도중 실패
+ * 실패한 chunk 는 롤백되고, 그 전까지 커밋된 chunk 는 유지된다.
+ * {@link #getProgress()} 의 lastId 를 resumeAfterId 로 넘기면 실패한 chunk 부터 다시 실행한다.
+ * 진행 보고(listener)에서 실패한 경우에는 보고한 chunk 까지 커밋되어 있고, 다음 chunk 부터 다시 실행한다.
+ */
+@Getter
+public class ChunkedBulkException extends RuntimeException {
+
+  private final BulkProgress progress;
+
+  public ChunkedBulkException(BulkProgress progress, Throwable cause) {
+    super("Bulk operation failed after id " + progress.lastId() + " (" + progress.chunks() + " chunks committed)", cause);
+    this.progress = progress;
+  }
+}
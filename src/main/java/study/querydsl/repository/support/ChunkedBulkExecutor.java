@@ -0,0 +1,150 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * 벌크 update / delete 를 식별자 범위 chunk 로 나눠서 실행한다.
+ * 한 문장으로 전체를 처리하면 락을 오래 잡고 undo 로그가 커지므로, chunk 마다 별도 트랜잭션으로 커밋한다.
+ *
+ * - chunk 범위는 where 조건과 상관없이 식별자 순서로 chunkSize 건씩 자른다. (id > lastId and id <= upper)
+ * - chunk 사이에 throttle 만큼 쉬어서 다른 요청이 처리될 여유를 준다.
+ * - 실패하면 {@link ChunkedBulkException} 에 마지막으로 커밋된 위치가 담긴다. resumeAfterId 로 재개한다.
+ * - 진행 보고(listener)가 예외를 던지면 실행을 중단한다. 보고한 chunk 는 이미 커밋되었으므로
+ *   그 진행 상황을 담은 ChunkedBulkException 으로 감싸서 던진다. (중단 용도로 사용할 수 있다)
+ * - 각 chunk 는 새 트랜잭션에서 실행되므로 호출한 쪽 영속성 컨텍스트에는 반영되지 않는다.
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate chunkTransaction;
+  private final int chunkSize;
+  private final Duration throttle;
+
+  public ChunkedBulkExecutor(EntityManager em, PlatformTransactionManager transactionManager,
+                             @Value("${querydsl.bulk.chunk-size:1000}") int chunkSize,
+                             @Value("${querydsl.bulk.throttle:10ms}") Duration throttle) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.chunkTransaction = new TransactionTemplate(transactionManager);
+    this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.chunkSize = chunkSize;
+    this.throttle = throttle;
+  }
+
+  /**
+   * @param assignments set 절 지정 (예: {@code update -> update.set(member.age, member.age.add(1))})
+   * @param where       대상 조건 (없으면 null)
+   */
+  public BulkProgress update(EntityPath<?> entity, Predicate where, Consumer<JPAUpdateClause> assignments,
+                             long resumeAfterId, Consumer<BulkProgress> listener) {
+    NumberPath<Long> id = QueryRoots.longIdPath(em, entity);
+    return execute(entity, id, resumeAfterId, listener, (from, to) -> {
+      JPAUpdateClause update = queryFactory.update(entity);
+      assignments.accept(update);
+      return update.where(where, id.gt(from), id.loe(to)).execute();
+    });
+  }
+
+  /**
+   * @param where 대상 조건 (없으면 null)
+   */
+  public BulkProgress delete(EntityPath<?> entity, Predicate where,
+                             long resumeAfterId, Consumer<BulkProgress> listener) {
+    NumberPath<Long> id = QueryRoots.longIdPath(em, entity);
+    return execute(entity, id, resumeAfterId, listener, (from, to) -> {
+      return queryFactory.delete(entity).where(where, id.gt(from), id.loe(to)).execute();
+    });
+  }
+
+  private BulkProgress execute(EntityPath<?> entity, NumberPath<Long> id, long resumeAfterId,
+                               Consumer<BulkProgress> listener, ChunkStatement statement) {
+    long start = System.nanoTime();
+    BulkProgress progress = new BulkProgress(0, 0, resumeAfterId, Duration.ZERO);
+
+    while (true) {
+      long from = progress.lastId();
+      Chunk chunk;
+      try {
+        chunk = chunkTransaction.execute(status -> {
+          Long to = chunkUpperBound(entity, id, from);
+          return to == null ? null : new Chunk(to, statement.execute(from, to));
+        });
+      } catch (RuntimeException e) {
+        throw new ChunkedBulkException(progress, e);
+      }
+      if (chunk == null) {
+        return progress;
+      }
+
+      progress = new BulkProgress(progress.chunks() + 1, progress.affectedRows() + chunk.affectedRows(),
+          chunk.upperId(), Duration.ofNanos(System.nanoTime() - start));
+      log.info("bulk {} progress: chunks={}, affectedRows={}, lastId={}",
+          entity.getType().getSimpleName(), progress.chunks(), progress.affectedRows(), progress.lastId());
+      try {
+        listener.accept(progress);
+      } catch (RuntimeException e) {
+        throw new ChunkedBulkException(progress, e);
+      }
+      pause(progress);
+    }
+  }
+
+  /**
+   * from 다음부터 chunkSize 번째 식별자. 남은 행이 chunkSize 보다 적으면 마지막 식별자, 없으면 null
+   */
+  private Long chunkUpperBound(EntityPath<?> entity, NumberPath<Long> id, long from) {
+    Long upper = queryFactory
+        .select(id)
+        .from(entity)
+        .where(id.gt(from))
+        .orderBy(id.asc())
+        .offset(chunkSize - 1)
+        .limit(1)
+        .fetchOne();
+    if (upper != null) {
+      return upper;
+    }
+    return queryFactory
+        .select(id.max())
+        .from(entity)
+        .where(id.gt(from))
+        .fetchOne();
+  }
+
+  private void pause(BulkProgress progress) {
+    if (throttle.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(throttle.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ChunkedBulkException(progress, e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ChunkStatement {
+    long execute(long fromExclusive, long toInclusive);
+  }
+
+  private record Chunk(long upperId, long affectedRows) {
+  }
+}
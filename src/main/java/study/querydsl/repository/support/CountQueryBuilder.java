@@ -0,0 +1,245 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * content 쿼리로부터 가장 가벼운 count 쿼리를 만든다.
+ *
+ * - select 절, order by, offset / limit 을 버린다.
+ * - fetch join 을 일반 join 으로 바꾼다. (count 쿼리에서는 fetch join 을 쓸 수 없다)
+ * - 루트 엔티티의 id 를 센다. content 쿼리가 distinct 이면 count(distinct id)
+ * - where / having / 다른 join 에서 참조하지 않는 to-one left join 을 제거한다.
+ * - 참조하지 않는 to-one inner join(on 조건 없음)은 FK is not null 조건으로 바꾼다.
+ *   FK 제약조건이 있으면 FK 가 null 이 아닌 row 만 join 에 성공하므로 건수가 같다. (@NotFound 매핑에는 쓰지 않는다)
+ *
+ * 컬렉션 join 과 연관관계 없는 엔티티 join 은 건수를 늘릴 수 있으므로 참조하지 않더라도 유지한다.
+ */
+public final class CountQueryBuilder {
+
+  private CountQueryBuilder() {
+  }
+
+  public static JPAQuery<Long> from(EntityManager entityManager, JPAQuery<?> contentQuery) {
+    QueryMetadata source = contentQuery.getMetadata();
+    if (!source.getGroupBy().isEmpty()) {
+      throw new IllegalArgumentException("Count query for group by query must be written by hand");
+    }
+
+    QueryMetadata metadata = filterCopy(source, false);
+
+    EntityPath<?> rootPath = QueryRoots.rootPath(source);
+    PathBuilder<?> idPath = QueryRoots.idPath(entityManager, rootPath);
+    return new JPAQuery<>(entityManager, metadata)
+        .select(source.isDistinct() ? idPath.countDistinct() : idPath.count());
+  }
+
+  /**
+   * 루트 row 를 고르는 부분(join, where, having)만 복사한다. select 절, offset / limit 은 복사하지 않는다.
+   * includeOrderBy 이면 order by 도 복사하고, order by 에서 참조하는 join 도 유지한다.
+   */
+  static QueryMetadata filterCopy(QueryMetadata source, boolean includeOrderBy) {
+    List<JoinExpression> joins = source.getJoins();
+    Set<Expression<?>> referenced = new HashSet<>();
+    collect(source.getWhere(), referenced);
+    collect(source.getHaving(), referenced);
+    if (includeOrderBy) {
+      for (OrderSpecifier<?> order : source.getOrderBy()) {
+        collect(order.getTarget(), referenced);
+      }
+    }
+
+    // 뒤쪽 join 이 앞쪽 join 의 alias 를 참조할 수 있으므로 뒤에서부터 판단한다
+    boolean[] retained = new boolean[joins.size()];
+    retained[0] = true;
+    List<Predicate> notNull = new ArrayList<>();
+    for (int i = joins.size() - 1; i > 0; i--) {
+      JoinExpression join = joins.get(i);
+      if (isToOneAssociation(join) && !referenced.contains(alias(join.getTarget()))) {
+        if (join.getType() == JoinType.LEFTJOIN) {
+          continue;
+        }
+        if ((join.getType() == JoinType.JOIN || join.getType() == JoinType.INNERJOIN) && join.getCondition() == null) {
+          // member.team is not null -> member.team_id is not null (team 테이블을 읽지 않는다)
+          Expression<?> association = association(join.getTarget());
+          notNull.add(0, ExpressionUtils.isNotNull(association));
+          collect(association, referenced);
+          continue;
+        }
+      }
+      retained[i] = true;
+      collect(association(join.getTarget()), referenced);
+      collect(join.getCondition(), referenced);
+    }
+
+    QueryMetadata metadata = new DefaultQueryMetadata();
+    for (int i = 0; i < joins.size(); i++) {
+      if (retained[i]) {
+        addJoin(metadata, joins.get(i));
+      }
+    }
+    if (source.getWhere() != null) {
+      metadata.addWhere(source.getWhere());
+    }
+    notNull.forEach(metadata::addWhere);
+    if (source.getHaving() != null) {
+      metadata.addHaving(source.getHaving());
+    }
+    if (includeOrderBy) {
+      source.getOrderBy().forEach(metadata::addOrderBy);
+    }
+    source.getParams().forEach((param, value) -> setParam(metadata, param, value));
+    return metadata;
+  }
+
+  private static void addJoin(QueryMetadata metadata, JoinExpression join) {
+    metadata.addJoin(join.getType(), join.getTarget());
+    if (join.getCondition() != null) {
+      metadata.addJoinCondition(join.getCondition());
+    }
+    for (JoinFlag flag : join.getFlags()) {
+      if (!flag.equals(JPAQueryMixin.FETCH)) {
+        metadata.addJoinFlag(flag);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+    metadata.setParam(param, (T) value);
+  }
+
+  /**
+   * 연관관계를 따라가는 to-one join 만 제거 대상이다.
+   * left join 이면 루트 row 를 늘리거나 줄이지 않고, inner join 이면 FK 가 null 인 row 만 줄인다.
+   */
+  private static boolean isToOneAssociation(JoinExpression join) {
+    Expression<?> association = association(join.getTarget());
+    return association instanceof Path<?> path
+        && path.getMetadata().getParent() != null
+        && !(association instanceof CollectionExpression<?, ?>);
+  }
+
+  // join(member.team, team) 의 target 은 alias(member.team, team) 연산이다
+  private static Expression<?> association(Expression<?> target) {
+    if (target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+      return operation.getArg(0);
+    }
+    return target;
+  }
+
+  private static Expression<?> alias(Expression<?> target) {
+    if (target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+      return operation.getArg(1);
+    }
+    return target;
+  }
+
+  private static void collect(Expression<?> expression, Set<Expression<?>> referenced) {
+    if (expression != null) {
+      expression.accept(PathCollector.INSTANCE, referenced);
+    }
+  }
+
+  /**
+   * 표현식에서 참조하는 모든 path 와 그 상위 path 를 모은다. (team.name -> team.name, team)
+   */
+  private static final class PathCollector implements Visitor<Void, Set<Expression<?>>> {
+
+    private static final PathCollector INSTANCE = new PathCollector();
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Expression<?>> context) {
+      return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Expression<?>> context) {
+      visitAll(expr.getArgs(), context);
+      return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Expression<?>> context) {
+      visitAll(expr.getArgs(), context);
+      return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Expression<?>> context) {
+      return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Expression<?>> context) {
+      Path<?> path = expr;
+      while (path != null) {
+        context.add(path);
+        path = path.getMetadata().getParent();
+      }
+      return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> context) {
+      QueryMetadata metadata = expr.getMetadata();
+      for (JoinExpression join : metadata.getJoins()) {
+        collect(join.getTarget(), context);
+        collect(join.getCondition(), context);
+      }
+      collect(metadata.getProjection(), context);
+      collect(metadata.getWhere(), context);
+      collect(metadata.getHaving(), context);
+      visitAll(metadata.getGroupBy(), context);
+      List<Expression<?>> orderTargets = new ArrayList<>();
+      for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+        orderTargets.add(order.getTarget());
+      }
+      visitAll(orderTargets, context);
+      return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Expression<?>> context) {
+      for (Object arg : expr.getArgs()) {
+        if (arg instanceof Expression<?> argExpression) {
+          collect(argExpression, context);
+        }
+      }
+      return null;
+    }
+
+    private void visitAll(List<? extends Expression<?>> expressions, Set<Expression<?>> context) {
+      for (Expression<?> expression : expressions) {
+        collect(expression, context);
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.p6spy.TableChangedEvent;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리 결과 캐시
+ * 같은 검색 조건으로 페이지만 넘기는 경우 count 쿼리를 다시 실행하지 않는다.
+ *
+ * - TTL 이 지난 항목은 조회 시점에 버린다.
+ * - maxSize 를 넘으면 가장 오래 사용되지 않은 항목부터 버린다. (LRU)
+ * - member / team 테이블에 DML 이 실행되면 전부 비운다. (엔티티 변경, 벌크 update / delete 포함)
+ */
+@Component
+public class CountQueryCache {
+
+  private static final Set<String> WATCHED_TABLES = Set.of("member", "team");
+
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final int maxSize;
+  private final Map<Key, Entry> entries;
+
+  // 무효화 세대. count 실행 도중 무효화가 일어나면 그 결과는 캐시에 넣지 않는다.
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  public CountQueryCache(@Value("${querydsl.count-cache.enabled:true}") boolean enabled,
+                         @Value("${querydsl.count-cache.ttl:30s}") Duration ttl,
+                         @Value("${querydsl.count-cache.max-size:1000}") int maxSize) {
+    this.enabled = enabled;
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > CountQueryCache.this.maxSize) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * 캐시된 count 가 있으면 반환하고, 없으면 countQuery 를 실행해서 캐시에 넣는다.
+   */
+  public long getOrCount(Key key, LongSupplier countQuery) {
+    if (!enabled) {
+      return countQuery.getAsLong();
+    }
+
+    Long cached = get(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    long startGeneration = generation.get();
+    long total = countQuery.getAsLong();
+    put(key, total, startGeneration);
+    return total;
+  }
+
+  public boolean contains(Key key) {
+    return enabled && get(key) != null;
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    invalidations.increment();
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  @EventListener
+  public void onTableChanged(TableChangedEvent event) {
+    if (WATCHED_TABLES.contains(event.table())) {
+      invalidateAll();
+    }
+  }
+
+  public Stats stats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), size, maxSize);
+  }
+
+  private Long get(Key key) {
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+        entries.remove(key);
+        evictions.increment();
+        return null;
+      }
+      return entry.total();
+    }
+  }
+
+  private void put(Key key, long total, long startGeneration) {
+    synchronized (entries) {
+      if (generation.get() == startGeneration) {
+        entries.put(key, new Entry(total, System.nanoTime()));
+      }
+    }
+  }
+
+  /**
+   * @param query     count 쿼리 식별자 (같은 조건이라도 쿼리마다 count 가 다를 수 있다)
+   * @param condition 정규화된 검색 조건 (equals / hashCode 구현 필요)
+   */
+  public record Key(String query, Object condition) {
+  }
+
+  public record Stats(long hits, long misses, long evictions, long invalidations, int size, int maxSize) {
+  }
+
+  private record Entry(long total, long createdAt) {
+  }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+/**
+ * 페이징 전체 건수(total) 계산 방식
+ */
+public enum CountStrategy {
+  /**
+   * count 쿼리로 정확한 건수를 구한다. (기본값)
+   */
+  EXACT,
+  /**
+   * 최대 N+1 건까지만 세고, 넘으면 "N+" 로 표기한다.
+   */
+  CAPPED,
+  /**
+   * 조건이 없으면 DB 통계의 추정 row 수를 사용한다. 조건이 있으면 CAPPED 로 동작한다.
+   */
+  ESTIMATED
+}
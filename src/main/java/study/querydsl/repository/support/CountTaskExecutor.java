@@ -0,0 +1,102 @@
+package study.querydsl.repository.support;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.p6spy.CallSite;
+import study.querydsl.config.p6spy.RequestStatements;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * count 쿼리를 content 쿼리와 동시에 실행하기 위한 전용 스레드 풀
+ *
+ * 작업은 별도 스레드에서 새 읽기 전용 트랜잭션(= 별도 커넥션, 별도 영속성 컨텍스트)으로 실행된다.
+ * 따라서 요청 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다. 읽기 전용 조회에만 사용한다.
+ * 요청의 SQL 문장 집계({@link RequestStatements})와 호출 위치({@link CallSite})는 작업 스레드로 넘겨서
+ * count 도 요청 예산과 호출한 리포지토리 메서드로 집계한다.
+ */
+@Component
+public class CountTaskExecutor {
+
+  private final ThreadPoolExecutor executor;
+  private final TransactionTemplate readOnlyTransaction;
+  private final Duration timeout;
+
+  public CountTaskExecutor(PlatformTransactionManager transactionManager,
+                           @Value("${querydsl.paging.count-executor.threads:4}") int threads,
+                           @Value("${querydsl.paging.count-executor.queue-capacity:100}") int queueCapacity,
+                           @Value("${querydsl.paging.count-executor.timeout:5s}") Duration timeout) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+      Thread thread = new Thread(runnable, "page-count-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.timeout = timeout;
+  }
+
+  /**
+   * 풀이 가득 찬 경우 RejectedExecutionException 이 발생한다. 호출한 쪽에서 순차 실행으로 처리한다.
+   */
+  public <V> Future<V> submitReadOnly(Supplier<V> task) {
+    RequestStatements statements = RequestStatements.current();
+    String site = CallSite.current();
+    return executor.submit(() -> {
+      RequestStatements.bind(statements);
+      CallSite.bind(site);
+      try {
+        return readOnlyTransaction.execute(status -> task.get());
+      } finally {
+        CallSite.unbind();
+        RequestStatements.unbind();
+      }
+    });
+  }
+
+  /**
+   * timeout 이 지나면 QueryTimeoutException 이 발생한다.
+   * 이때 작업은 cancel(false) 로 취소하므로 이미 실행 중인 count 쿼리는 DB 에서 끝날 때까지 계속 실행되고
+   * 그 스레드와 커넥션도 그동안 반환되지 않는다. 오래 걸리는 count 가 쌓이면 풀이 가득 차고
+   * 이후 요청은 순차 실행으로 처리된다.
+   */
+  public <V> V join(Future<V> future) {
+    try {
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // 인터럽트하면 사용 중인 JDBC 커넥션이 끊길 수 있으므로 결과만 버린다
+      future.cancel(false);
+      throw new QueryTimeoutException("Count query did not complete within " + timeout, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Count query failed", e.getCause());
+    } catch (InterruptedException e) {
+      future.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for count query", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
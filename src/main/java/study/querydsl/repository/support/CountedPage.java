@@ -0,0 +1,39 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 전체 건수를 어떤 방식으로 구했는지 함께 담는 Page
+ */
+@Getter
+public class CountedPage<T> extends PageImpl<T> {
+
+  private final CountStrategy countStrategy;
+  // true 이면 실제 건수는 totalElements 보다 많다
+  private final boolean totalCapped;
+
+  public CountedPage(List<T> content, Pageable pageable, long total, CountStrategy countStrategy,
+                     boolean totalCapped) {
+    super(content, pageable, total);
+    this.countStrategy = countStrategy;
+    this.totalCapped = totalCapped;
+  }
+
+  @Override
+  public <U> CountedPage<U> map(Function<? super T, ? extends U> converter) {
+    return new CountedPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), countStrategy,
+        totalCapped);
+  }
+
+  /**
+   * 화면 표기용 전체 건수. 상한에 걸린 경우 "N+"
+   */
+  public String getTotalLabel() {
+    return totalCapped ? getTotalElements() + "+" : String.valueOf(getTotalElements());
+  }
+}
@@ -0,0 +1,121 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * offset / limit 이 걸린 content 쿼리를 두 단계로 나눠서 실행한다.
+ *
+ * 1. 루트 id 만 조회한다. (where, order by, offset, limit 적용 / 조건과 정렬에 필요 없는 to-one join 제거)
+ * 2. content 쿼리의 select 절을 id in (...) 조건으로 조회하고 1단계 순서대로 다시 정렬한다.
+ */
+public final class DeferredJoinFetcher {
+
+  private DeferredJoinFetcher() {
+  }
+
+  /**
+   * @param contentQuery offset / limit 이 적용된 content 쿼리
+   * @param idOf         content 결과에서 루트 id 를 꺼내는 방법 (순서 복원용)
+   */
+  public static <T> List<T> fetch(EntityManager entityManager, JPAQuery<T> contentQuery,
+                                  Function<? super T, ?> idOf) {
+    QueryMetadata source = contentQuery.getMetadata();
+    PathBuilder<?> idPath = QueryRoots.idPath(entityManager, QueryRoots.rootPath(source));
+
+    List<?> ids = pageIds(entityManager, contentQuery);
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    QueryMetadata contentMetadata = new DefaultQueryMetadata();
+    for (JoinExpression join : source.getJoins()) {
+      contentMetadata.addJoin(join.getType(), join.getTarget());
+      if (join.getCondition() != null) {
+        contentMetadata.addJoinCondition(join.getCondition());
+      }
+      for (JoinFlag flag : join.getFlags()) {
+        contentMetadata.addJoinFlag(flag);
+      }
+    }
+    contentMetadata.addWhere(Expressions.booleanOperation(Ops.IN, idPath, ConstantImpl.create(ids)));
+    contentMetadata.setProjection(source.getProjection());
+    contentMetadata.setDistinct(source.isDistinct());
+    source.getParams().forEach((param, value) -> CountQueryBuilder.setParam(contentMetadata, param, value));
+    List<T> content = new JPAQuery<T>(entityManager, contentMetadata).fetch();
+
+    return orderByIds(content, ids, idOf);
+  }
+
+  /**
+   * 루트 엔티티를 조회하는 content 쿼리를 두 단계로 실행한다.
+   * 1단계는 {@link #fetch} 와 같고, 2단계는 id in (...) 으로 루트 엔티티만 조회하면서 fetchPlan 의 연관관계를 함께 가져온다.
+   * 컬렉션을 함께 가져와도 페이징은 1단계 SQL 에서 끝나므로 메모리에서 페이징하지 않는다.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> List<T> fetch(EntityManager entityManager, JPAQuery<T> contentQuery, FetchPlan fetchPlan,
+                                  boolean readOnly) {
+    QueryMetadata source = contentQuery.getMetadata();
+    EntityPath<T> rootPath = (EntityPath<T>) QueryRoots.rootPath(source);
+    PathBuilder<?> idPath = QueryRoots.idPath(entityManager, rootPath);
+
+    List<?> ids = pageIds(entityManager, contentQuery);
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    JPAQuery<T> entityQuery = new JPAQuery<T>(entityManager)
+        .select(rootPath)
+        .from(rootPath)
+        .where(Expressions.booleanOperation(Ops.IN, idPath, ConstantImpl.create(ids)))
+        .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, fetchPlan.toEntityGraph(entityManager, rootPath.getType()));
+    if (readOnly) {
+      entityQuery.setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+    PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    return orderByIds(entityQuery.fetch(), ids, persistenceUnitUtil::getIdentifier);
+  }
+
+  /**
+   * where, order by, offset / limit 을 적용해서 루트 id 만 조회한다.
+   * 조건과 정렬에 필요 없는 to-one join 은 count 쿼리와 같은 규칙으로 제거한다. (inner join 은 FK is not null 조건으로 대체)
+   */
+  private static List<?> pageIds(EntityManager entityManager, JPAQuery<?> contentQuery) {
+    QueryMetadata source = contentQuery.getMetadata();
+    PathBuilder<?> idPath = QueryRoots.idPath(entityManager, QueryRoots.rootPath(source));
+
+    QueryMetadata idMetadata = CountQueryBuilder.filterCopy(source, true);
+    idMetadata.setModifiers(source.getModifiers());
+    idMetadata.setDistinct(source.isDistinct());
+    return new JPAQuery<>(entityManager, idMetadata).select(idPath).fetch();
+  }
+
+  private static <T> List<T> orderByIds(List<T> content, List<?> ids, Function<? super T, ?> idOf) {
+    Map<Object, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.put(ids.get(i), i);
+    }
+    List<T> ordered = new ArrayList<>(content);
+    ordered.sort(Comparator.comparingInt(row -> positions.getOrDefault(idOf.apply(row), Integer.MAX_VALUE)));
+    return ordered;
+  }
+}
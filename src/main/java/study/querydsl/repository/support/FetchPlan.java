@@ -0,0 +1,65 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 페이징 조회 시 함께 가져올 연관관계 목록 (entity graph 로 적용)
+ * 루트 Q타입에서 시작하는 경로로 지정한다. (예: {@code FetchPlan.of(member.team)}, 중첩은 {@code member.team.members})
+ */
+@Getter
+public final class FetchPlan {
+
+  // 루트 기준 속성 경로 (예: "team", "team.members")
+  private final List<String> attributePaths;
+
+  private FetchPlan(List<String> attributePaths) {
+    this.attributePaths = attributePaths;
+  }
+
+  public static FetchPlan of(Path<?>... associations) {
+    return new FetchPlan(Arrays.stream(associations).map(FetchPlan::attributePath).toList());
+  }
+
+  <T> EntityGraph<T> toEntityGraph(EntityManager entityManager, Class<T> rootType) {
+    EntityGraph<T> graph = entityManager.createEntityGraph(rootType);
+    for (String attributePath : attributePaths) {
+      String[] names = attributePath.split("\\.");
+      if (names.length == 1) {
+        graph.addAttributeNodes(names[0]);
+        continue;
+      }
+      Subgraph<?> subgraph = graph.addSubgraph(names[0]);
+      for (int i = 1; i < names.length - 1; i++) {
+        subgraph = subgraph.addSubgraph(names[i]);
+      }
+      subgraph.addAttributeNodes(names[names.length - 1]);
+    }
+    return graph;
+  }
+
+  static String attributePath(Path<?> path) {
+    List<String> names = new ArrayList<>();
+    PathMetadata metadata = path.getMetadata();
+    while (metadata.getParent() != null) {
+      if (metadata.getPathType() != PathType.PROPERTY) {
+        throw new IllegalArgumentException("Fetch plan supports property paths only: " + path);
+      }
+      names.add(0, metadata.getName());
+      metadata = metadata.getParent().getMetadata();
+    }
+    if (names.isEmpty()) {
+      throw new IllegalArgumentException("Fetch plan path must be an association of the root: " + path);
+    }
+    return String.join(".", names);
+  }
+}
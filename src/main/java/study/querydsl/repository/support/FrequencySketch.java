@@ -0,0 +1,62 @@
+package study.querydsl.repository.support;
+
+/**
+ * 최근 접근 빈도 추정용 Count-Min Sketch (4bit 카운터, TinyLFU)
+ * 추가 횟수가 sampleSize 에 도달하면 모든 카운터를 절반으로 줄여서 오래된 빈도를 잊는다.
+ * 스레드 안전하지 않다. (호출하는 쪽에서 동기화)
+ */
+final class FrequencySketch {
+
+  private static final int DEPTH = 4;
+  private static final int MAX_COUNT = 15;
+  private static final int[] SEEDS = {0x97cb3127, 0x2cb7b2a3, 0x5bd1e995, 0x7feb352d};
+
+  private final int[][] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(int width) {
+    int size = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+    this.table = new int[DEPTH][size];
+    this.mask = size - 1;
+    this.sampleSize = size * 10;
+  }
+
+  void increment(int hash) {
+    boolean added = false;
+    for (int i = 0; i < DEPTH; i++) {
+      int index = index(hash, i);
+      if (table[i][index] < MAX_COUNT) {
+        table[i][index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  int frequency(int hash) {
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < DEPTH; i++) {
+      frequency = Math.min(frequency, table[i][index(hash, i)]);
+    }
+    return frequency;
+  }
+
+  private void reset() {
+    for (int[] row : table) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>>= 1;
+      }
+    }
+    additions /= 2;
+  }
+
+  private int index(int hash, int depth) {
+    int h = (hash ^ SEEDS[depth]) * 0x9E3779B9;
+    h ^= h >>> 16;
+    return h & mask;
+  }
+}
@@ -0,0 +1,203 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@link CountStrategy} 에 따라 페이지의 전체 건수를 구한다.
+ * count 를 생략할 수 있는 경우는 PageableExecutionUtils 와 동일하게 생략한다.
+ * concurrentCount 옵션을 켜면 count 를 {@link CountTaskExecutor} 에서 content 와 동시에 실행한다.
+ */
+@Component
+public class PageCounter {
+
+  private final EntityManager entityManager;
+  private final CountQueryCache countQueryCache;
+  private final CountTaskExecutor countTaskExecutor;
+  private final long cap;
+  private final String estimateSql;
+
+  public PageCounter(EntityManager entityManager, CountQueryCache countQueryCache,
+                     CountTaskExecutor countTaskExecutor,
+                     @Value("${querydsl.count.cap:1000}") long cap,
+                     @Value("${querydsl.count.estimate-sql:select row_count_estimate from information_schema.tables where table_schema = current_schema and lower(table_name) = lower(?1)}")
+                     String estimateSql) {
+    this.entityManager = entityManager;
+    this.countQueryCache = countQueryCache;
+    this.countTaskExecutor = countTaskExecutor;
+    this.cap = cap;
+    this.estimateSql = estimateSql;
+  }
+
+  /**
+   * @param contentQuery content 조회. 항상 요청 스레드(요청 트랜잭션)에서 실행된다.
+   * @param countKey     count 캐시 key (EXACT 에서만 사용)
+   * @param countQuery   조건(from, join, where)이 들어있는 count 용 쿼리. CAPPED / ESTIMATED 에서 사용
+   * @param exactCount   정확한 count 를 구하는 방법
+   */
+  public <T> CountedPage<T> getPage(Supplier<List<T>> contentQuery, Pageable pageable, PageOptions options,
+                                    CountQueryCache.Key countKey, JPAQuery<?> countQuery,
+                                    LongSupplier exactCount) {
+    Supplier<Total> count = () -> count(pageable, options.getCountStrategy(), countKey, countQuery, exactCount);
+    Future<Total> concurrentCount = startConcurrentCount(pageable, options, countKey, count);
+
+    List<T> content;
+    try {
+      content = contentQuery.get();
+    } catch (RuntimeException e) {
+      cancel(concurrentCount);
+      throw e;
+    }
+
+    AtomicReference<Total> counted = new AtomicReference<>();
+    Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+      Total total = QueryPhases.count(
+          () -> concurrentCount != null ? countTaskExecutor.join(concurrentCount) : count.get());
+      counted.set(total);
+      return total.value();
+    });
+
+    // count 를 생략한 경우 total 은 content 로 계산한 정확한 값이다
+    Total total = counted.get();
+    if (total == null) {
+      cancel(concurrentCount);
+    }
+    CountStrategy strategy = total != null ? total.strategy() : CountStrategy.EXACT;
+    boolean capped = total != null && total.capped();
+    return new CountedPage<>(page.getContent(), pageable, page.getTotalElements(), strategy, capped);
+  }
+
+  /**
+   * count 가 필요 없을 수도 있지만 content 결과를 보기 전에는 알 수 없으므로 먼저 시작하고,
+   * PageableExecutionUtils 가 count 를 생략하면 결과를 버린다.
+   * 캐시에 이미 있는 count 나 페이징하지 않는 요청은 별도 스레드로 보내지 않는다.
+   */
+  private Future<Total> startConcurrentCount(Pageable pageable, PageOptions options,
+                                             CountQueryCache.Key countKey, Supplier<Total> count) {
+    if (!options.isConcurrentCount() || pageable.isUnpaged()) {
+      return null;
+    }
+    if (options.getCountStrategy() == CountStrategy.EXACT && countQueryCache.contains(countKey)) {
+      return null;
+    }
+    try {
+      return countTaskExecutor.submitReadOnly(count);
+    } catch (RejectedExecutionException e) {
+      // 풀이 가득 차면 content 이후에 순차 실행한다
+      return null;
+    }
+  }
+
+  /**
+   * cancel(false) 는 아직 시작하지 않은 count 만 취소한다. 이미 실행 중인 count 쿼리는 멈추지 않고
+   * 끝까지 실행된 뒤 결과만 버려진다 (그동안 count 스레드와 커넥션 하나를 계속 사용한다).
+   * 인터럽트로 멈추면 사용 중인 JDBC 커넥션이 끊길 수 있으므로 의도적으로 그대로 둔다.
+   */
+  private void cancel(Future<Total> concurrentCount) {
+    if (concurrentCount != null) {
+      concurrentCount.cancel(false);
+    }
+  }
+
+  private Total count(Pageable pageable, CountStrategy strategy, CountQueryCache.Key countKey,
+                      JPAQuery<?> countQuery, LongSupplier exactCount) {
+    return switch (strategy) {
+      case EXACT -> new Total(countQueryCache.getOrCount(countKey, exactCount), CountStrategy.EXACT, false);
+      case CAPPED -> capped(pageable, countQuery);
+      case ESTIMATED -> isFiltered(countQuery.getMetadata())
+          ? capped(pageable, countQuery)
+          : estimated(countQuery).orElseGet(() -> capped(pageable, countQuery));
+    };
+  }
+
+  /**
+   * 루트 id 를 최대 limit + 1 건까지만 DB 에서 센다. cap 을 넘으면 "cap+" 로 표기한다.
+   * Querydsl 은 from 절 서브쿼리를 만들 수 없으므로 id 조회를 JPQL 로 직렬화한 뒤
+   * HQL(Hibernate 6)의 from 절 서브쿼리로 감싼다. id 를 애플리케이션으로 가져오지 않는다.
+   * 현재 페이지 다음 페이지까지는 이동할 수 있도록 상한은 최소 offset + pageSize + 1 이다.
+   */
+  private Total capped(Pageable pageable, JPAQuery<?> countQuery) {
+    long limit = Math.max(cap, pageable.getOffset() + pageable.getPageSize() + 1);
+    EntityPath<?> rootPath = QueryRoots.rootPath(countQuery.getMetadata());
+    PathBuilder<?> idPath = QueryRoots.idPath(entityManager, rootPath);
+
+    QueryMetadata metadata = countQuery.getMetadata().clone();
+    metadata.setModifiers(QueryModifiers.EMPTY);
+    metadata.clearOrderBy();
+    // limit 을 쓰기 위해 정렬한다 (id 순서는 PK 인덱스로 읽을 수 있다)
+    metadata.addOrderBy(idPath.asc());
+    metadata.setProjection(ExpressionUtils.as(idPath, "id"));
+
+    JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(entityManager), entityManager);
+    serializer.serialize(metadata, false, null);
+    Query query = entityManager.createQuery(
+        "select count(*) from (" + serializer + " limit " + (limit + 1) + ") capped");
+    JPAUtil.setConstants(query, serializer.getConstants(), metadata.getParams());
+    long rows = ((Number) query.getSingleResult()).longValue();
+
+    return rows > limit
+        ? new Total(limit, CountStrategy.CAPPED, true)
+        : new Total(rows, CountStrategy.CAPPED, false);
+  }
+
+  /**
+   * 조건이 없는 경우 루트 테이블의 통계상 row 수를 사용한다.
+   */
+  private Optional<Total> estimated(JPAQuery<?> countQuery) {
+    EntityPath<?> rootPath = QueryRoots.rootPath(countQuery.getMetadata());
+    String table = QueryRoots.tableName(entityManager, rootPath.getType());
+
+    List<?> result = entityManager.createNativeQuery(estimateSql)
+                                  .setParameter(1, table)
+                                  .getResultList();
+    if (result.isEmpty() || result.get(0) == null) {
+      return Optional.empty();
+    }
+    long rows = ((Number) result.get(0)).longValue();
+    return Optional.of(new Total(rows, CountStrategy.ESTIMATED, false));
+  }
+
+  /**
+   * 루트 엔티티 수를 줄일 수 있는 조건이 있는지 확인한다.
+   * left join 은 건수를 줄이지 않으므로 조건으로 보지 않는다.
+   */
+  private boolean isFiltered(QueryMetadata metadata) {
+    if (metadata.getWhere() != null || metadata.getHaving() != null || !metadata.getGroupBy().isEmpty()) {
+      return true;
+    }
+    List<JoinExpression> joins = metadata.getJoins();
+    for (int i = 1; i < joins.size(); i++) {
+      if (joins.get(i).getType() != JoinType.LEFTJOIN) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private record Total(long value, CountStrategy strategy, boolean capped) {
+  }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.repository.support;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.With;
+
+/**
+ * 페이징 쿼리 실행 옵션
+ */
+@Getter
+@With
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageOptions {
+
+  public static final PageOptions DEFAULT = new PageOptions(CountStrategy.EXACT, false, PagingStrategy.OFFSET, false);
+
+  private final CountStrategy countStrategy;
+  // count 쿼리를 별도 커넥션 / 읽기 전용 트랜잭션에서 content 쿼리와 동시에 실행
+  private final boolean concurrentCount;
+  private final PagingStrategy pagingStrategy;
+  // content 엔티티를 읽기 전용으로 조회 (스냅샷 / dirty checking 없음, 화면 표시용)
+  private final boolean readOnly;
+
+  public static PageOptions of(CountStrategy countStrategy) {
+    return DEFAULT.withCountStrategy(countStrategy);
+  }
+}
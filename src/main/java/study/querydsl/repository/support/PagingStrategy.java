@@ -0,0 +1,16 @@
+package study.querydsl.repository.support;
+
+/**
+ * offset 페이징의 content 조회 방식
+ */
+public enum PagingStrategy {
+  /**
+   * content 쿼리에 offset / limit 을 그대로 적용한다. (기본값)
+   */
+  OFFSET,
+  /**
+   * id 만 offset / limit 으로 먼저 조회하고, 그 id 들로 content 를 조회한다. (deferred join)
+   * offset 으로 버려지는 row 에 대해서는 좁은 인덱스만 읽으므로 깊은 페이지에서 유리하다.
+   */
+  DEFERRED_JOIN
+}
@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+/**
+ * 리포지토리 메서드 한 번의 실행 시간을 나누는 단계
+ */
+public enum QueryPhase {
+  /**
+   * Querydsl 식 구성 등 아래 단계에 속하지 않는 나머지 시간
+   */
+  BUILD,
+  /**
+   * Querydsl -> JPQL 문자열 렌더링
+   */
+  RENDER,
+  /**
+   * 조회 시작부터 첫 SQL 실행 전까지 (HQL 해석, SQL 변환, 파라미터 바인딩)
+   */
+  TRANSLATE,
+  /**
+   * JDBC 실행
+   */
+  EXECUTE,
+  /**
+   * 첫 SQL 실행 이후 JDBC 실행을 뺀 나머지 (ResultSet 읽기, 엔티티 / DTO 생성)
+   */
+  HYDRATE,
+  /**
+   * count 조회 전체
+   */
+  COUNT
+}
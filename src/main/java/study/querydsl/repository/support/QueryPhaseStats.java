@@ -0,0 +1,64 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 리포지토리 메서드 별 단계({@link QueryPhase}) 평균 시간
+ */
+@Component
+public class QueryPhaseStats {
+
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  public void record(String method, long[] phaseNanos) {
+    Counter counter = counters.computeIfAbsent(method, key -> new Counter());
+    counter.calls.increment();
+    for (int i = 0; i < phaseNanos.length; i++) {
+      counter.phaseNanos[i].add(phaseNanos[i]);
+    }
+  }
+
+  public Map<String, Stats> stats() {
+    Map<String, Stats> stats = new TreeMap<>();
+    counters.forEach((method, counter) -> stats.put(method, counter.snapshot()));
+    return stats;
+  }
+
+  /**
+   * @param calls           샘플링된 호출 수
+   * @param meanMillis      호출당 평균 전체 시간(ms)
+   * @param phaseMeanMillis 호출당 단계별 평균 시간(ms)
+   */
+  public record Stats(long calls, double meanMillis, Map<QueryPhase, Double> phaseMeanMillis) {
+  }
+
+  private static class Counter {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[QueryPhase.values().length];
+
+    private Counter() {
+      for (int i = 0; i < phaseNanos.length; i++) {
+        phaseNanos[i] = new LongAdder();
+      }
+    }
+
+    private Stats snapshot() {
+      long calls = Math.max(1, this.calls.sum());
+      Map<QueryPhase, Double> phases = new EnumMap<>(QueryPhase.class);
+      double total = 0;
+      for (QueryPhase phase : QueryPhase.values()) {
+        double mean = phaseNanos[phase.ordinal()].sum() / 1_000_000.0 / calls;
+        phases.put(phase, mean);
+        total += mean;
+      }
+      return new Stats(this.calls.sum(), total, phases);
+    }
+  }
+}
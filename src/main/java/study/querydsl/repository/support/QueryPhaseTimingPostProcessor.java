@@ -0,0 +1,63 @@
+package study.querydsl.repository.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * MemberRepositoryCustom 구현체와 Querydsl4RepositorySupport 하위 리포지토리의 public 메서드를
+ * sample-rate 비율로 골라 단계별({@link QueryPhase}) 시간을 잰다.
+ *
+ * sample-rate 가 0 이면 등록하지 않는다. (프록시 없음)
+ * 이미 샘플링 중인 호출 안에서 불린 리포지토리 메서드는 바깥 호출에 포함된다.
+ */
+@Component
+@ConditionalOnExpression("${querydsl.phase-timing.sample-rate:0} > 0")
+public class QueryPhaseTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+  public QueryPhaseTimingPostProcessor(@Value("${querydsl.phase-timing.sample-rate:0}") double sampleRate,
+                                       ObjectProvider<QueryPhaseStats> stats) {
+    ClassFilter repositories = type -> MemberRepositoryCustom.class.isAssignableFrom(type)
+        || Querydsl4RepositorySupport.class.isAssignableFrom(type);
+    ComposablePointcut pointcut = new ComposablePointcut(repositories)
+        .intersection(new StaticMethodMatcher() {
+          @Override
+          public boolean matches(Method method, Class<?> targetClass) {
+            return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+          }
+        });
+
+    MethodInterceptor interceptor = invocation -> {
+      if (QueryPhases.isActive()
+          || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+        return invocation.proceed();
+      }
+      QueryPhases.start();
+      try {
+        return invocation.proceed();
+      } finally {
+        long[] phases = QueryPhases.finish();
+        String method = AopUtils.getTargetClass(invocation.getThis()).getSimpleName() + "."
+            + invocation.getMethod().getName();
+        stats.getObject().record(method, phases);
+      }
+    };
+
+    this.advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+    setBeforeExistingAdvisors(true);
+    setProxyTargetClass(true);
+  }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.JPQLQuery;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 샘플링된 리포지토리 호출 하나의 단계별({@link QueryPhase}) 시간 (호출 스레드에 묶인다)
+ *
+ * 샘플링되지 않은 호출에서는 {@link #fetch}, {@link #count} 가 ThreadLocal 조회 한 번 후 그대로 실행한다.
+ * JDBC 실행 시간은 p6spy 리스너가 {@link #beforeExecute()}, {@link #afterExecute(long)} 로 알려준다.
+ */
+public final class QueryPhases {
+
+  private static final ThreadLocal<QueryPhases> CURRENT = new ThreadLocal<>();
+
+  private final long startNanos = System.nanoTime();
+  private final long[] nanos = new long[QueryPhase.values().length];
+  private boolean fetching;
+  private boolean counting;
+  private long firstExecuteNanos;
+  private long executeNanos;
+
+  private QueryPhases() {
+  }
+
+  static QueryPhases start() {
+    QueryPhases phases = new QueryPhases();
+    CURRENT.set(phases);
+    return phases;
+  }
+
+  static boolean isActive() {
+    return CURRENT.get() != null;
+  }
+
+  /**
+   * @return 단계별 시간(ns). BUILD 는 전체 시간에서 나머지 단계를 뺀 값
+   */
+  static long[] finish() {
+    QueryPhases phases = CURRENT.get();
+    CURRENT.remove();
+    long total = System.nanoTime() - phases.startNanos;
+    long measured = 0;
+    for (long phase : phases.nanos) {
+      measured += phase;
+    }
+    phases.nanos[QueryPhase.BUILD.ordinal()] = Math.max(0, total - measured);
+    return phases.nanos;
+  }
+
+  /**
+   * Querydsl 쿼리 조회. 샘플링 중이면 JPQL 렌더링 시간을 따로 잰다.
+   * (렌더링을 한 번 더 하게 되지만 샘플링된 호출에서만 한다)
+   */
+  public static <T> List<T> fetch(JPQLQuery<T> query) {
+    QueryPhases phases = CURRENT.get();
+    if (phases == null || phases.fetching || phases.counting) {
+      return query.fetch();
+    }
+    long start = System.nanoTime();
+    query.toString();
+    long render = System.nanoTime() - start;
+    phases.add(QueryPhase.RENDER, render);
+    return phases.timeFetch(query::fetch, render);
+  }
+
+  /**
+   * 이미 렌더링된 쿼리(JPQL 캐시, 네이티브 SQL) 조회
+   */
+  public static <T> List<T> fetch(Supplier<List<T>> query) {
+    QueryPhases phases = CURRENT.get();
+    if (phases == null || phases.fetching || phases.counting) {
+      return query.get();
+    }
+    return phases.timeFetch(query, 0);
+  }
+
+  public static <T> T count(Supplier<T> count) {
+    QueryPhases phases = CURRENT.get();
+    if (phases == null || phases.fetching || phases.counting) {
+      return count.get();
+    }
+    long start = System.nanoTime();
+    phases.counting = true;
+    try {
+      return count.get();
+    } finally {
+      phases.counting = false;
+      phases.add(QueryPhase.COUNT, System.nanoTime() - start);
+    }
+  }
+
+  public static void beforeExecute() {
+    QueryPhases phases = CURRENT.get();
+    if (phases != null && phases.fetching && phases.firstExecuteNanos == 0) {
+      phases.firstExecuteNanos = System.nanoTime();
+    }
+  }
+
+  public static void afterExecute(long elapsedNanos) {
+    QueryPhases phases = CURRENT.get();
+    if (phases != null && phases.fetching) {
+      phases.executeNanos += elapsedNanos;
+    }
+  }
+
+  /**
+   * @param rendered 조회 안에서 다시 렌더링하는 데 쓰인 것으로 보는 시간 (TRANSLATE 에서 뺀다)
+   */
+  private <T> List<T> timeFetch(Supplier<List<T>> query, long rendered) {
+    long start = System.nanoTime();
+    fetching = true;
+    firstExecuteNanos = 0;
+    executeNanos = 0;
+    try {
+      return query.get();
+    } finally {
+      long end = System.nanoTime();
+      fetching = false;
+      long firstExecute = firstExecuteNanos != 0 ? firstExecuteNanos : end;
+      add(QueryPhase.TRANSLATE, Math.max(0, firstExecute - start - rendered));
+      add(QueryPhase.EXECUTE, executeNanos);
+      add(QueryPhase.HYDRATE, Math.max(0, end - firstExecute - executeNanos));
+    }
+  }
+
+  private void add(QueryPhase phase, long elapsedNanos) {
+    nanos[phase.ordinal()] += elapsedNanos;
+  }
+}
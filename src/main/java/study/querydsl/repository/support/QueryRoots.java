@@ -0,0 +1,58 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * 쿼리의 루트 엔티티(from 절의 첫 번째 엔티티) 관련 정보
+ */
+final class QueryRoots {
+
+  private QueryRoots() {
+  }
+
+  static EntityPath<?> rootPath(QueryMetadata metadata) {
+    JoinExpression root = metadata.getJoins().get(0);
+    if (!(root.getTarget() instanceof EntityPath<?> rootPath)) {
+      throw new IllegalArgumentException("Query root must be an entity path: " + root.getTarget());
+    }
+    return rootPath;
+  }
+
+  static PathBuilder<?> idPath(EntityManager entityManager, EntityPath<?> rootPath) {
+    String idName = persister(entityManager, rootPath.getType()).getIdentifierPropertyName();
+    return new PathBuilder<>(rootPath.getType(), rootPath.getMetadata()).get(idName);
+  }
+
+  static NumberPath<Long> longIdPath(EntityManager entityManager, EntityPath<?> rootPath) {
+    EntityPersister persister = persister(entityManager, rootPath.getType());
+    if (persister.getIdentifierType().getReturnedClass() != Long.class) {
+      throw new IllegalArgumentException("Identifier of " + rootPath.getType().getSimpleName() + " must be Long");
+    }
+    return new PathBuilder<>(rootPath.getType(), rootPath.getMetadata())
+        .getNumber(persister.getIdentifierPropertyName(), Long.class);
+  }
+
+  static String tableName(EntityManager entityManager, Class<?> entityType) {
+    EntityPersister persister = persister(entityManager, entityType);
+    if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+      throw new IllegalArgumentException("Unsupported entity persister: " + persister);
+    }
+    return entityPersister.getTableName();
+  }
+
+  private static EntityPersister persister(EntityManager entityManager, Class<?> entityType) {
+    return entityManager.getEntityManagerFactory()
+                        .unwrap(SessionFactoryImplementor.class)
+                        .getRuntimeMetamodels()
+                        .getMappingMetamodel()
+                        .getEntityDescriptor(entityType);
+  }
+}
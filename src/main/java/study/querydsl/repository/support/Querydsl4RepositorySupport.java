@@ -1,12 +1,16 @@
 package study.querydsl.repository.support;
 
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,10 +18,8 @@ import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
-import java.util.List;
 import java.util.function.Function;
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -32,6 +34,7 @@ public abstract class Querydsl4RepositorySupport {
   private Querydsl querydsl;
   private EntityManager entityManager;
   private JPAQueryFactory queryFactory;
+  private PageCounter pageCounter;
   public Querydsl4RepositorySupport(Class<?> domainClass) {
     Assert.notNull(domainClass, "Domain class must not be null!");
     this.domainClass = domainClass;
@@ -48,11 +51,16 @@ public abstract class Querydsl4RepositorySupport {
         PathBuilder<>(path.getType(), path.getMetadata()));
     this.queryFactory = new JPAQueryFactory(entityManager);
   }
+  @Autowired
+  public void setPageCounter(PageCounter pageCounter) {
+    this.pageCounter = pageCounter;
+  }
   @PostConstruct
   public void validate() {
     Assert.notNull(entityManager, "EntityManager must not be null!");
     Assert.notNull(querydsl, "Querydsl must not be null!");
     Assert.notNull(queryFactory, "QueryFactory must not be null!");
+    Assert.notNull(pageCounter, "PageCounter must not be null!");
   }
   protected JPAQueryFactory getQueryFactory() {
     return queryFactory;
@@ -71,20 +79,75 @@ public abstract class Querydsl4RepositorySupport {
   }
   protected <T> Page<T> applyPagination(Pageable pageable,
                                         Function<JPAQueryFactory, JPAQuery> contentQuery) {
+    return applyPagination(pageable, PageOptions.DEFAULT, contentQuery);
+  }
+  protected <T> CountedPage<T> applyPagination(Pageable pageable, PageOptions options,
+                                               Function<JPAQueryFactory, JPAQuery> contentQuery) {
     JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-    List<T> content = getQuerydsl().applyPagination(pageable,
-        jpaQuery).fetch();
-    return PageableExecutionUtils.getPage(content, pageable,
-        jpaQuery::fetchCount);
+    if (options.isReadOnly()) {
+      readOnly(jpaQuery);
+    }
+    // applyPagination 이 jpaQuery 에 offset, limit, order by 를 추가하므로 count 쿼리를 먼저 만든다
+    JPAQuery<Long> countResult = countQueryOf(jpaQuery);
+    JPQLQuery<T> pagedQuery = getQuerydsl().applyPagination(pageable, jpaQuery);
+    return pageCounter.getPage(() -> QueryPhases.fetch(pagedQuery), pageable, options, countKey(countResult), countResult,
+        countResult::fetchOne);
   }
   protected <T> Page<T> applyPagination(Pageable pageable,
                                         Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
       JPAQuery> countQuery) {
+    return applyPagination(pageable, PageOptions.DEFAULT, contentQuery, countQuery);
+  }
+  protected <T> CountedPage<T> applyPagination(Pageable pageable, PageOptions options,
+                                               Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                               Function<JPAQueryFactory, JPAQuery> countQuery) {
     JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-    List<T> content = getQuerydsl().applyPagination(pageable,
-        jpaContentQuery).fetch();
+    if (options.isReadOnly()) {
+      readOnly(jpaContentQuery);
+    }
+    JPQLQuery<T> pagedQuery = getQuerydsl().applyPagination(pageable, jpaContentQuery);
     JPAQuery countResult = countQuery.apply(getQueryFactory());
-    return PageableExecutionUtils.getPage(content, pageable,
+    return pageCounter.getPage(() -> QueryPhases.fetch(pagedQuery), pageable, options, countKey(countResult), countResult,
         countResult::fetchCount);
   }
+  /**
+   * 루트 엔티티 페이징 + 연관관계(컬렉션 포함) 함께 조회
+   * 루트 id 를 SQL 에서 먼저 페이징하고, 그 id 들로 fetchPlan 을 적용해서 엔티티를 조회한다.
+   * contentQuery 에는 fetch join 을 넣지 않는다. (필터용 join 만)
+   * @see DeferredJoinFetcher#fetch(EntityManager, JPAQuery, FetchPlan, boolean)
+   */
+  protected <T> CountedPage<T> applyPagination(Pageable pageable, PageOptions options, FetchPlan fetchPlan,
+                                               Function<JPAQueryFactory, JPAQuery> contentQuery) {
+    JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+    JPAQuery<Long> countResult = countQueryOf(jpaQuery);
+    JPAQuery<T> pagedQuery = (JPAQuery<T>) getQuerydsl().applyPagination(pageable, jpaQuery);
+    return pageCounter.getPage(
+        () -> QueryPhases.fetch(() -> DeferredJoinFetcher.fetch(getEntityManager(), pagedQuery, fetchPlan,
+            options.isReadOnly())),
+        pageable, options, countKey(countResult), countResult, countResult::fetchOne);
+  }
+  /**
+   * 조회한 엔티티를 읽기 전용으로 영속성 컨텍스트에 올린다.
+   * 스냅샷을 남기지 않고 flush 때 dirty checking 대상에서 빠진다. (변경해도 DB 에 반영되지 않는다)
+   */
+  protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+    return query.setHint(HibernateHints.HINT_READ_ONLY, true);
+  }
+  /**
+   * content 쿼리에서 count 쿼리를 만든다. 필요 없는 select, order by, fetch join, to-one left join 을 제거한다.
+   * @see CountQueryBuilder
+   */
+  protected JPAQuery<Long> countQueryOf(JPAQuery<?> contentQuery) {
+    return CountQueryBuilder.from(getEntityManager(), contentQuery);
+  }
+  /**
+   * count 캐시 key. 페이징(offset, limit, order by)을 뺀 쿼리 메타데이터 자체를 정규화된 조건으로 사용한다.
+   * 조건 값은 상수 표현식으로 들어있으므로 같은 조건이면 같은 key 가 된다.
+   */
+  private CountQueryCache.Key countKey(JPAQuery<?> query) {
+    QueryMetadata metadata = query.getMetadata().clone();
+    metadata.setModifiers(QueryModifiers.EMPTY);
+    metadata.clearOrderBy();
+    return new CountQueryCache.Key(domainClass.getName(), metadata);
+  }
 }
\ No newline at end of file
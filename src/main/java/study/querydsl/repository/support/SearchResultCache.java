@@ -0,0 +1,224 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import study.querydsl.config.p6spy.TableChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * 검색 결과 캐시 (검색 조건 + Pageable 단위)
+ * 일부 팀 / 나이대에 몰리는 조회를 DB 까지 보내지 않는다.
+ *
+ * - 전체 크기는 결과의 추정 메모리(byte) 합으로 제한한다.
+ * - 자리가 부족하면 가장 오래 사용되지 않은 항목이 희생 후보가 되고,
+ *   새 항목의 최근 요청 빈도가 희생 후보보다 높을 때만 들어온다. (TinyLFU admission)
+ *   한 번 조회되고 마는 조건이 자주 쓰이는 결과를 밀어내지 않는다.
+ * - member / team 테이블에 DML 이 실행되면 전부 비운다. (엔티티 변경, Querydsl 벌크 update / delete 포함)
+ * - 쓰기 트랜잭션 안에서는 커밋 전 변경이 보일 수 있으므로 캐시를 사용하지 않는다.
+ *
+ * 변경 가능한 결과는 copier 로 캐시에 넣을 때와 꺼낼 때마다 복사한다. 호출한 쪽이 결과를 수정해도 캐시에 영향이 없다.
+ */
+@Component
+public class SearchResultCache {
+
+  private static final Set<String> WATCHED_TABLES = Set.of("member", "team");
+  // sketch 크기를 정할 때 가정하는 항목당 평균 크기
+  private static final long AVERAGE_ENTRY_BYTES = 4 * 1024;
+
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final long maxWeight;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final FrequencySketch sketch;
+  private long weight;
+
+  // 무효화 세대. 조회 도중 무효화가 일어나면 그 결과는 캐시에 넣지 않는다.
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder admissions = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  public SearchResultCache(@Value("${querydsl.search-cache.enabled:true}") boolean enabled,
+                           @Value("${querydsl.search-cache.ttl:60s}") Duration ttl,
+                           @Value("${querydsl.search-cache.max-weight:8MB}") DataSize maxWeight) {
+    this.enabled = enabled;
+    this.ttlNanos = ttl.toNanos();
+    this.maxWeight = maxWeight.toBytes();
+    this.sketch = new FrequencySketch((int) Math.min(1 << 16, this.maxWeight / AVERAGE_ENTRY_BYTES));
+  }
+
+  /**
+   * 변경할 수 없는 결과용 (복사하지 않는다)
+   */
+  public <T> T get(Key key, Supplier<T> loader, ToLongFunction<? super T> weigher) {
+    return get(key, loader, weigher, UnaryOperator.identity());
+  }
+
+  /**
+   * 캐시된 결과가 있으면 사본을 반환하고, 없으면 loader 로 조회한 뒤 admission 을 통과하면 사본을 캐시에 넣는다.
+   *
+   * @param weigher 결과의 추정 메모리 크기(byte)
+   * @param copier  결과의 사본을 만드는 방법 (캐시된 값과 반환 값이 객체를 공유하지 않아야 한다)
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Key key, Supplier<T> loader, ToLongFunction<? super T> weigher, UnaryOperator<T> copier) {
+    if (!enabled || !cacheable()) {
+      return loader.get();
+    }
+
+    Object cached = lookup(key);
+    if (cached != null) {
+      hits.increment();
+      return copier.apply((T) cached);
+    }
+
+    misses.increment();
+    long startGeneration = generation.get();
+    T value = loader.get();
+    put(key, copier.apply(value), weigher.applyAsLong(value), startGeneration);
+    return value;
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    invalidations.increment();
+    synchronized (entries) {
+      entries.clear();
+      weight = 0;
+    }
+  }
+
+  @EventListener
+  public void onTableChanged(TableChangedEvent event) {
+    if (WATCHED_TABLES.contains(event.table())) {
+      invalidateAll();
+    }
+  }
+
+  public Stats stats() {
+    int size;
+    long currentWeight;
+    synchronized (entries) {
+      size = entries.size();
+      currentWeight = weight;
+    }
+    long hitCount = hits.sum();
+    long requestCount = hitCount + misses.sum();
+    double hitRatio = requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    return new Stats(hitCount, misses.sum(), hitRatio, admissions.sum(), rejections.sum(), evictions.sum(),
+        invalidations.sum(), size, currentWeight, maxWeight);
+  }
+
+  private boolean cacheable() {
+    return !TransactionSynchronizationManager.isActualTransactionActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  private Object lookup(Key key) {
+    synchronized (entries) {
+      sketch.increment(key.hashCode());
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+        remove(key, entry);
+        evictions.increment();
+        return null;
+      }
+      return entry.value();
+    }
+  }
+
+  private void put(Key key, Object value, long valueWeight, long startGeneration) {
+    synchronized (entries) {
+      if (generation.get() != startGeneration || entries.containsKey(key)) {
+        return;
+      }
+      if (valueWeight > maxWeight) {
+        rejections.increment();
+        return;
+      }
+      // 만료된 항목이 희생 후보가 되어 새 항목을 거절하지 않도록 먼저 비운다
+      if (weight + valueWeight > maxWeight) {
+        purgeExpired();
+      }
+
+      // 공간이 날 때까지 LRU 순서로 희생 후보를 고르고, 후보 중 하나라도 더 자주 쓰였으면 넣지 않는다
+      List<Map.Entry<Key, Entry>> victims = new ArrayList<>();
+      long freed = 0;
+      int candidateFrequency = sketch.frequency(key.hashCode());
+      Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+      while (weight - freed + valueWeight > maxWeight && iterator.hasNext()) {
+        Map.Entry<Key, Entry> victim = iterator.next();
+        if (sketch.frequency(victim.getKey().hashCode()) >= candidateFrequency) {
+          rejections.increment();
+          return;
+        }
+        victims.add(victim);
+        freed += victim.getValue().weight();
+      }
+
+      for (Map.Entry<Key, Entry> victim : victims) {
+        remove(victim.getKey(), victim.getValue());
+        evictions.increment();
+      }
+      entries.put(key, new Entry(value, valueWeight, System.nanoTime()));
+      weight += valueWeight;
+      admissions.increment();
+    }
+  }
+
+  private void purgeExpired() {
+    long now = System.nanoTime();
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (now - entry.createdAt() > ttlNanos) {
+        iterator.remove();
+        weight -= entry.weight();
+        evictions.increment();
+      }
+    }
+  }
+
+  private void remove(Key key, Entry entry) {
+    entries.remove(key);
+    weight -= entry.weight();
+  }
+
+  /**
+   * @param query     조회 메서드 식별자
+   * @param condition 정규화된 검색 조건 (equals / hashCode 구현 필요)
+   * @param pageable  페이지 요청 (목록 조회는 null)
+   * @param options   결과에 영향을 주는 실행 옵션 (없으면 null)
+   */
+  public record Key(String query, Object condition, Object pageable, Object options) {
+  }
+
+  public record Stats(long hits, long misses, double hitRatio, long admissions, long rejections,
+                      long evictions, long invalidations, int size, long weight, long maxWeight) {
+  }
+
+  private record Entry(Object value, long weight, long createdAt) {
+  }
+}
@@ -0,0 +1,133 @@
+package study.querydsl.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkInsertResult;
+import study.querydsl.repository.support.BulkInserter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 대용량 합성 데이터 생성 (generate 프로파일)
+ * 운영 규모의 실행 계획 / 캐시 동작을 재현하기 위한 용도. 분포는 {@link MemberSampler} 참고.
+ *
+ * - 애플리케이션 기동이 끝난 뒤 백그라운드 스레드에서 실행한다. (기동을 막지 않는다)
+ * - 팀을 먼저 저장하고, 회원은 chunk 단위로 나눠서 workers 개 스레드가 각자 트랜잭션 / 커넥션으로 저장한다.
+ * - 같은 seed 로 다시 만들면 같은 데이터가 만들어진다. (식별자 값은 저장 순서에 따라 다를 수 있다)
+ */
+@Slf4j
+@Profile("generate")
+@Component
+public class MemberDataGenerator {
+
+  private final BulkInserter bulkInserter;
+  private final EntityManager em;
+  private final int teams;
+  private final long members;
+  private final int workers;
+  private final int chunkSize;
+  private final MemberSampler sampler;
+  private final ExecutorService executor;
+
+  private final AtomicLong insertedMembers = new AtomicLong();
+
+  public MemberDataGenerator(BulkInserter bulkInserter, EntityManager em,
+                             @Value("${querydsl.generator.seed:42}") long seed,
+                             @Value("${querydsl.generator.teams:1000}") int teams,
+                             @Value("${querydsl.generator.members:1000000}") long members,
+                             @Value("${querydsl.generator.workers:4}") int workers,
+                             @Value("${querydsl.generator.chunk-size:10000}") int chunkSize,
+                             @Value("${querydsl.generator.team-skew:1.0}") double teamSkew,
+                             @Value("${querydsl.generator.age-mean:35}") double ageMean,
+                             @Value("${querydsl.generator.age-stddev:12}") double ageStddev,
+                             @Value("${querydsl.generator.username-cardinality:1000000}") long usernameCardinality) {
+    this.bulkInserter = bulkInserter;
+    this.em = em;
+    this.teams = teams;
+    this.members = members;
+    this.workers = workers;
+    this.chunkSize = chunkSize;
+    this.sampler = new MemberSampler(seed, teams, teamSkew, ageMean, ageStddev, usernameCardinality);
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable, "data-generator-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    // 작업 스레드 풀과 분리된 스레드에서 chunk 를 나눠 주고 완료를 기다린다
+    Thread thread = new Thread(() -> {
+      try {
+        generate();
+      } catch (RuntimeException e) {
+        log.error("data generation failed after {} members", insertedMembers.get(), e);
+      }
+    }, "data-generator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public long getInsertedMembers() {
+    return insertedMembers.get();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void generate() {
+    long start = System.nanoTime();
+
+    // 저장 후 준영속 상태가 되지만 식별자는 남아 있다
+    List<Team> savedTeams = IntStream.range(0, teams)
+        .mapToObj(i -> new Team("team" + i))
+        .toList();
+    bulkInserter.insert(savedTeams.stream());
+    long[] teamIds = savedTeams.stream().mapToLong(Team::getId).toArray();
+
+    long chunks = (members + chunkSize - 1) / chunkSize;
+    CompletableFuture<?>[] futures = LongStream.range(0, chunks)
+        .mapToObj(chunk -> CompletableFuture.runAsync(() -> insertChunk(chunk, teamIds), executor))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
+
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    log.info("data generation done: teams={}, members={}, elapsed={}s, rows/sec={}",
+        teams, insertedMembers.get(), String.format("%.1f", seconds),
+        String.format("%.0f", insertedMembers.get() / seconds));
+  }
+
+  private void insertChunk(long chunk, long[] teamIds) {
+    RandomGenerator random = sampler.random(chunk);
+    long from = chunk * chunkSize;
+    long to = Math.min(members, from + chunkSize);
+
+    // 팀은 프록시 참조만 연결한다. (new Member(.., team) 은 team.members 컬렉션을 초기화한다)
+    BulkInsertResult result = bulkInserter.insert(LongStream.range(from, to).mapToObj(sequence ->
+        Member.forBulkInsert(sampler.username(sequence, random), sampler.age(random),
+            em.getReference(Team.class, teamIds[sampler.teamIndex(random)]))));
+
+    long inserted = insertedMembers.addAndGet(result.rows());
+    log.info("data generation progress: {}/{} members", inserted, members);
+  }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 한 건씩 읽어서 바로 응답으로 쓴다.
+ * 전체 결과를 List 로 만들지 않으므로 건수와 상관없이 메모리 사용량이 일정하다.
+ */
+@Service
+public class MemberExportService {
+
+  private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+  private final MemberRepository memberRepository;
+  private final EntityManager em;
+  private final ObjectWriter jsonWriter;
+  private final int fetchSize;
+  private final int clearInterval;
+
+  public MemberExportService(MemberRepository memberRepository, EntityManager em, ObjectMapper objectMapper,
+                             @Value("${querydsl.export.fetch-size:500}") int fetchSize,
+                             @Value("${querydsl.export.clear-interval:1000}") int clearInterval) {
+    this.memberRepository = memberRepository;
+    this.em = em;
+    this.jsonWriter = objectMapper.writerFor(MemberTeamDto.class);
+    this.fetchSize = fetchSize;
+    this.clearInterval = clearInterval;
+  }
+
+  /**
+   * @return 내보낸 건수
+   */
+  @Transactional(readOnly = true)
+  public long export(MemberSearchCondition condition, ExportFormat format, Writer writer) throws IOException {
+    if (format == ExportFormat.CSV) {
+      writer.write(CSV_HEADER);
+      writer.write('\n');
+    }
+
+    long count = 0;
+    try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, fetchSize)) {
+      Iterator<MemberTeamDto> rows = stream.iterator();
+      while (rows.hasNext()) {
+        MemberTeamDto row = rows.next();
+        if (format == ExportFormat.CSV) {
+          writeCsv(writer, row);
+        } else {
+          writer.write(jsonWriter.writeValueAsString(row));
+        }
+        writer.write('\n');
+
+        // 주기적으로 영속성 컨텍스트를 비우고 버퍼를 내보낸다
+        if (++count % clearInterval == 0) {
+          em.clear();
+          writer.flush();
+        }
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  private void writeCsv(Writer writer, MemberTeamDto row) throws IOException {
+    writer.write(String.valueOf(row.getMemberId()));
+    writer.write(',');
+    writer.write(csv(row.getUsername()));
+    writer.write(',');
+    writer.write(String.valueOf(row.getAge()));
+    writer.write(',');
+    writer.write(row.getTeamId() == null ? "" : String.valueOf(row.getTeamId()));
+    writer.write(',');
+    writer.write(csv(row.getTeamName()));
+  }
+
+  private String csv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
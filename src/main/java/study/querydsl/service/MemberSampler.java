@@ -0,0 +1,64 @@
+package study.querydsl.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * 합성 회원 데이터의 분포
+ *
+ * - 팀 크기: Zipf 분포 (teamSkew 가 클수록 앞 순번 팀에 몰린다, 0 이면 균등)
+ * - 나이: 정규 분포를 0 ~ 99 로 자른 값
+ * - 회원명: usernameCardinality 개의 값 중에서 뽑는다 (회원 수 이상이면 모두 다른 이름)
+ *
+ * 같은 seed, 같은 chunk 번호면 항상 같은 값을 만든다. (스레드 실행 순서와 무관)
+ */
+class MemberSampler {
+
+  private static final long CHUNK_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final long seed;
+  private final double[] teamCumulative;
+  private final double ageMean;
+  private final double ageStddev;
+  private final long usernameCardinality;
+
+  MemberSampler(long seed, int teamCount, double teamSkew, double ageMean, double ageStddev,
+                long usernameCardinality) {
+    this.seed = seed;
+    this.teamCumulative = new double[teamCount];
+    double sum = 0;
+    for (int rank = 0; rank < teamCount; rank++) {
+      sum += 1 / Math.pow(rank + 1, teamSkew);
+      teamCumulative[rank] = sum;
+    }
+    for (int rank = 0; rank < teamCount; rank++) {
+      teamCumulative[rank] /= sum;
+    }
+    this.ageMean = ageMean;
+    this.ageStddev = ageStddev;
+    this.usernameCardinality = usernameCardinality;
+  }
+
+  RandomGenerator random(long chunk) {
+    return new SplittableRandom(seed + chunk * CHUNK_SEED_GAMMA);
+  }
+
+  int teamIndex(RandomGenerator random) {
+    int index = Arrays.binarySearch(teamCumulative, random.nextDouble());
+    return Math.min(index >= 0 ? index : -index - 1, teamCumulative.length - 1);
+  }
+
+  int age(RandomGenerator random) {
+    long age = Math.round(random.nextGaussian(ageMean, ageStddev));
+    return (int) Math.max(0, Math.min(99, age));
+  }
+
+  /**
+   * @param sequence 전체에서 몇 번째 회원인지
+   */
+  String username(long sequence, RandomGenerator random) {
+    long index = sequence < usernameCardinality ? sequence : random.nextLong(usernameCardinality);
+    return "member" + index;
+  }
+}
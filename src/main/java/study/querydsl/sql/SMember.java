@@ -0,0 +1,64 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * member 테이블 (querydsl-sql MetaDataSerializer 출력 형식)
+ * 스키마는 Hibernate 가 엔티티에서 만들므로, 엔티티 매핑이 바뀌면 같이 고친다.
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final SMember member = new SMember("member");
+
+  public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+  public final StringPath username = createString("username");
+
+  public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+  public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+  public final PrimaryKey<SMember> primary = createPrimaryKey(memberId);
+
+  public final ForeignKey<STeam> teamFk = createForeignKey(teamId, "TEAM_ID");
+
+  public SMember(String variable) {
+    super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+    addMetadata();
+  }
+
+  public SMember(String variable, String schema, String table) {
+    super(SMember.class, forVariable(variable), schema, table);
+    addMetadata();
+  }
+
+  public SMember(Path<? extends SMember> path) {
+    super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER");
+    addMetadata();
+  }
+
+  public SMember(PathMetadata metadata) {
+    super(SMember.class, metadata, "PUBLIC", "MEMBER");
+    addMetadata();
+  }
+
+  public void addMetadata() {
+    addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).withSize(64).notNull());
+    addMetadata(age, ColumnMetadata.named("AGE").withIndex(2).ofType(Types.INTEGER).withSize(32).notNull());
+    addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(3).ofType(Types.BIGINT).withSize(64));
+    addMetadata(username, ColumnMetadata.named("USERNAME").withIndex(4).ofType(Types.VARCHAR).withSize(255));
+  }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.config.p6spy;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncSqlLoggerTest {
+
+  StatementInformation statement;
+
+  @BeforeEach
+  void before() {
+    statement = mock(StatementInformation.class);
+    when(statement.getConnectionInformation()).thenReturn(mock(ConnectionInformation.class));
+    when(statement.getSql()).thenReturn("select 1");
+  }
+
+  @Test
+  void dropWhenFull() {
+    // writer 스레드를 시작하지 않아서 버퍼가 비워지지 않는다
+    AsyncSqlLogger logger = new AsyncSqlLogger(4, 1.0, false);
+
+    for (int i = 0; i < 10; i++) {
+      logger.onAfterAnyExecute(statement, 1_000, null);
+    }
+
+    AsyncSqlLogger.Stats stats = logger.stats();
+    assertThat(stats.captured()).isEqualTo(4);
+    assertThat(stats.dropped()).isEqualTo(6);
+    assertThat(stats.sampledOut()).isZero();
+    assertThat(stats.buffered()).isEqualTo(4);
+  }
+
+  @Test
+  void sampleOutAll() {
+    AsyncSqlLogger logger = new AsyncSqlLogger(4, 0.0, false);
+
+    for (int i = 0; i < 10; i++) {
+      logger.onAfterAnyExecute(statement, 1_000, null);
+    }
+
+    AsyncSqlLogger.Stats stats = logger.stats();
+    assertThat(stats.sampledOut()).isEqualTo(10);
+    assertThat(stats.captured()).isZero();
+    assertThat(stats.dropped()).isZero();
+  }
+
+  @Test
+  void samplePartially() {
+    AsyncSqlLogger logger = new AsyncSqlLogger(16_384, 0.5, false);
+
+    for (int i = 0; i < 10_000; i++) {
+      logger.onAfterAnyExecute(statement, 1_000, null);
+    }
+
+    // 샘플링에서 빠진 문장은 버퍼에 넣지 않는다 (dropped 와 따로 센다)
+    AsyncSqlLogger.Stats stats = logger.stats();
+    assertThat(stats.captured() + stats.sampledOut()).isEqualTo(10_000);
+    assertThat(stats.sampledOut()).isBetween(4_000L, 6_000L);
+    assertThat(stats.dropped()).isZero();
+  }
+
+  @Test
+  void writeCaptured() throws InterruptedException {
+    AsyncSqlLogger logger = new AsyncSqlLogger(16, 1.0, false);
+    logger.start();
+    try {
+      for (int i = 0; i < 10; i++) {
+        logger.onAfterAnyExecute(statement, 1_000, null);
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (logger.stats().written() < logger.stats().captured() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+    } finally {
+      logger.stop();
+    }
+
+    AsyncSqlLogger.Stats stats = logger.stats();
+    assertThat(stats.written()).isEqualTo(stats.captured());
+    assertThat(stats.captured() + stats.dropped()).isEqualTo(10);
+    assertThat(stats.buffered()).isZero();
+  }
+
+  @Test
+  void formatCapturedSite() {
+    CustomP6spySqlFormat format = new CustomP6spySqlFormat(true);
+
+    // writer 스레드에서는 스택을 보지 않고 요청 스레드에서 잡아 둔 호출 위치를 쓴다
+    String message = format.formatMessage(1, "now", 3, "statement", "select 1",
+        List.of("MemberRepositoryImpl.search"));
+
+    assertThat(message).contains("1.MemberRepositoryImpl.search").doesNotContain("AsyncSqlLogger");
+  }
+}
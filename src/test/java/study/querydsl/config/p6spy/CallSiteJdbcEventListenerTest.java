@@ -0,0 +1,76 @@
+package study.querydsl.config.p6spy;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.CountTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class CallSiteJdbcEventListenerTest {
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+  @Autowired
+  CallSiteStats callSiteStats;
+  @Autowired
+  MemberRepository memberRepository;
+  @Autowired
+  CountTaskExecutor countTaskExecutor;
+  @PersistenceContext
+  EntityManager em;
+
+  @Test
+  void aggregateByRepositoryMethod() {
+    long before = statements("MemberJpaRepository.findAll");
+
+    memberJpaRepository.findAll();
+    memberJpaRepository.findAll();
+
+    assertThat(statements("MemberJpaRepository.findAll")).isEqualTo(before + 2);
+  }
+
+  @Test
+  void attributeToRepositoryEntryMethod() {
+    long before = statements("MemberRepositoryImpl.search");
+    long helperBefore = statements("MemberSearchShapeCache.search");
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("attributeToRepositoryEntryMethod");
+
+    // 결과 캐시 loader / 조건 형태 캐시를 거쳐도 호출된 리포지토리 메서드로 집계한다
+    memberRepository.search(condition);
+
+    assertThat(statements("MemberRepositoryImpl.search")).isGreaterThan(before);
+    assertThat(statements("MemberSearchShapeCache.search")).isEqualTo(helperBefore);
+  }
+
+  @Test
+  void countTaskInheritsCallerSite() {
+    String site = "CallSiteJdbcEventListenerTest.countTaskInheritsCallerSite";
+    long before = statements(site);
+    JPAQuery<Long> countQuery = new JPAQueryFactory(em).select(member.count()).from(member);
+
+    // 풀 스레드에는 애플리케이션 프레임이 없으므로 제출한 쪽의 호출 위치를 쓴다
+    countTaskExecutor.join(countTaskExecutor.submitReadOnly(countQuery::fetchOne));
+
+    assertThat(statements(site)).isEqualTo(before + 1);
+  }
+
+  private long statements(String site) {
+    return callSiteStats.stats().stream()
+        .filter(stats -> stats.site().equals(site))
+        .mapToLong(CallSiteStats.Stats::statements)
+        .sum();
+  }
+}
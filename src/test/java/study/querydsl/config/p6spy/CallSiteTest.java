@@ -0,0 +1,33 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallSiteTest {
+
+  @Test
+  void applicationFrames() {
+    assertThat(CallSite.isApplicationFrame("study.querydsl.repository.MemberRepositoryImpl")).isTrue();
+    assertThat(CallSite.isApplicationFrame("study.querydsl.repository.support.PageCounter")).isFalse();
+    assertThat(CallSite.isApplicationFrame("study.querydsl.config.p6spy.SlowQueryJdbcEventListener")).isFalse();
+    assertThat(CallSite.isApplicationFrame("study.querydsl.repository.MemberJpaRepository$$SpringCGLIB$$0")).isFalse();
+    assertThat(CallSite.isApplicationFrame("org.hibernate.query.Query")).isFalse();
+  }
+
+  @Test
+  void stackFrames() {
+    // 로그용 스택은 설정 / 공통 지원 코드 프레임도 남긴다
+    assertThat(CallSite.isStackFrame("study.querydsl.repository.support.PageCounter")).isTrue();
+    assertThat(CallSite.isStackFrame("study.querydsl.config.p6spy.SlowQueryJdbcEventListener")).isTrue();
+    assertThat(CallSite.isStackFrame("study.querydsl.repository.MemberJpaRepository$$SpringCGLIB$$0")).isFalse();
+    assertThat(CallSite.isStackFrame("org.hibernate.query.Query")).isFalse();
+    assertThat(CallSite.stack()).last().asString().startsWith("CallSiteTest.stackFrames:");
+  }
+
+  @Test
+  void lambdaMethodName() {
+    assertThat(CallSite.methodName("lambda$searchPageComplex$3")).isEqualTo("searchPageComplex");
+    assertThat(CallSite.methodName("search")).isEqualTo("search");
+  }
+}
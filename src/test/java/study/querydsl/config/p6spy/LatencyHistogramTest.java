@@ -0,0 +1,43 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+  @Test
+  void bucketRoundTrip() {
+    for (long value : new long[]{0, 1, 15, 16, 31, 32, 1_000, 123_456, 9_876_543_210L}) {
+      long approximate = LatencyHistogram.valueOf(LatencyHistogram.indexOf(value));
+      assertThat((double) approximate).isCloseTo(value, within(Math.max(1, value * 0.04)));
+    }
+  }
+
+  @Test
+  void percentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    // 1us ~ 1000us 가 고르게
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1_000L);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertThat(snapshot.count()).isEqualTo(1000);
+    assertThat(snapshot.p50()).isCloseTo(500, within(20.0));
+    assertThat(snapshot.p99()).isCloseTo(990, within(40.0));
+    assertThat(snapshot.p999()).isCloseTo(999, within(40.0));
+    assertThat(snapshot.max()).isEqualTo(1000);
+    assertThat(snapshot.mean()).isCloseTo(500.5, within(0.01));
+  }
+
+  @Test
+  void empty() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertThat(snapshot.count()).isZero();
+    assertThat(snapshot.p99()).isZero();
+  }
+}
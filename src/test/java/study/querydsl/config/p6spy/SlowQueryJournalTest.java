@@ -0,0 +1,58 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SlowQueryJournalTest {
+
+  @Autowired
+  DataSource dataSource;
+
+  @Test
+  void explainSlowQuery() {
+    // EXPLAIN 을 바로 실행하도록 호출 스레드에서 실행
+    SlowQueryJournal journal = new SlowQueryJournal(dataSource, Duration.ofMillis(100), 10, Runnable::run);
+
+    assertThat(journal.isSlow(Duration.ofMillis(99).toNanos())).isFalse();
+    assertThat(journal.isSlow(Duration.ofMillis(100).toNanos())).isTrue();
+
+    journal.record("select m1_0.member_id from member m1_0 where m1_0.age>10", Duration.ofMillis(150).toNanos(),
+        "MemberRepositoryImpl.search");
+
+    List<SlowQueryJournal.Entry> entries = journal.entries();
+    assertThat(entries).hasSize(1);
+    SlowQueryJournal.Entry entry = entries.get(0);
+    assertThat(entry.elapsedMillis()).isEqualTo(150.0);
+    assertThat(entry.origin()).isEqualTo("MemberRepositoryImpl.search");
+    assertThat(entry.fingerprint()).isEqualTo("select m1_0.member_id from member m1_0 where m1_0.age>?");
+    assertThat(entry.plan()).containsIgnoringCase("public.member");
+  }
+
+  @Test
+  void keepLatestEntries() {
+    SlowQueryJournal journal = new SlowQueryJournal(dataSource, Duration.ZERO, 2, Runnable::run);
+
+    journal.record("select 1", 1, "a");
+    journal.record("select 2", 1, "b");
+    journal.record("select 3", 1, "c");
+
+    assertThat(journal.entries()).extracting(SlowQueryJournal.Entry::origin).containsExactly("c", "b");
+  }
+
+  @Test
+  void skipExplainForDdl() {
+    SlowQueryJournal journal = new SlowQueryJournal(dataSource, Duration.ZERO, 10, Runnable::run);
+
+    journal.record("create table slow_query_test (id bigint)", 1, "a");
+
+    assertThat(journal.entries().get(0).plan()).isNull();
+  }
+}
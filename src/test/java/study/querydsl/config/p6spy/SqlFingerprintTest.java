@@ -0,0 +1,25 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+  @Test
+  void sameShapeDifferentValues() {
+    String sql1 = "/* select m from Member m */ select m1_0.member_id from member m1_0 where m1_0.team_id=1 and m1_0.username='a'";
+    String sql2 = "select m1_0.member_id\n  from member m1_0\n where m1_0.team_id=25 and m1_0.username='it''s'";
+
+    assertThat(SqlFingerprint.of(sql1))
+        .isEqualTo(SqlFingerprint.of(sql2))
+        .isEqualTo("select m1_0.member_id from member m1_0 where m1_0.team_id=? and m1_0.username=?");
+  }
+
+  @Test
+  void ignoreInListLength() {
+    assertThat(SqlFingerprint.of("select * from member where member_id in (1, 2, 3)"))
+        .isEqualTo(SqlFingerprint.of("select * from member where member_id in (?,?)"))
+        .isEqualTo("select * from member where member_id in (?)");
+  }
+}
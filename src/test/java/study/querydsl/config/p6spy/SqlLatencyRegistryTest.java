@@ -0,0 +1,54 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLatencyRegistryTest {
+
+  @Test
+  void groupByFingerprint() {
+    SqlLatencyRegistry registry = new SqlLatencyRegistry(10);
+
+    registry.record("select * from member where member_id in (1, 2, 3)", 1_000);
+    registry.record("select * from member where member_id in (4)", 3_000);
+    registry.record("select * from team where name = 'teamA'", 500_000);
+
+    List<SqlLatencyRegistry.Stats> stats = registry.stats();
+
+    assertThat(stats).extracting(SqlLatencyRegistry.Stats::fingerprint)
+        .containsExactly("select * from team where name = ?", "select * from member where member_id in (?)");
+    assertThat(stats.get(1).count()).isEqualTo(2);
+    assertThat(stats.get(1).max()).isEqualTo(3.0);
+  }
+
+  @Test
+  void overflowToOther() {
+    SqlLatencyRegistry registry = new SqlLatencyRegistry(2);
+
+    registry.record("select a from t1", 1_000);
+    registry.record("select a from t2", 1_000);
+    registry.record("select a from t3", 1_000);
+    registry.record("select a from t4", 1_000);
+
+    assertThat(registry.stats()).extracting(SqlLatencyRegistry.Stats::fingerprint)
+        .containsExactlyInAnyOrder("select a from t1", "select a from t2", SqlLatencyRegistry.OTHER);
+  }
+
+  @Test
+  void reset() {
+    SqlLatencyRegistry registry = new SqlLatencyRegistry(1);
+
+    registry.record("select a from t1", 1_000);
+    registry.record("select a from t2", 1_000);
+    registry.reset();
+    assertThat(registry.stats()).isEmpty();
+
+    // 비운 뒤에는 새 형태가 다시 자리를 차지한다
+    registry.record("select a from t2", 1_000);
+    assertThat(registry.stats()).extracting(SqlLatencyRegistry.Stats::fingerprint)
+        .containsExactly("select a from t2");
+  }
+}
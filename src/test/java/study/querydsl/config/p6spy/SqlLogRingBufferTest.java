@@ -0,0 +1,76 @@
+package study.querydsl.config.p6spy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLogRingBufferTest {
+
+  @Test
+  void offerUntilFull() {
+    SqlLogRingBuffer<Integer> buffer = new SqlLogRingBuffer<>(4);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(buffer.offer(i)).isTrue();
+    }
+    assertThat(buffer.offer(4)).isFalse();
+    assertThat(buffer.size()).isEqualTo(4);
+
+    assertThat(buffer.poll()).isEqualTo(0);
+    assertThat(buffer.offer(4)).isTrue();
+
+    List<Integer> drained = new ArrayList<>();
+    Integer e;
+    while ((e = buffer.poll()) != null) {
+      drained.add(e);
+    }
+    assertThat(drained).containsExactly(1, 2, 3, 4);
+    assertThat(buffer.size()).isZero();
+  }
+
+  @Test
+  void capacityRoundsUpToPowerOfTwo() {
+    assertThat(new SqlLogRingBuffer<>(1000).capacity()).isEqualTo(1024);
+    assertThat(new SqlLogRingBuffer<>(1024).capacity()).isEqualTo(1024);
+  }
+
+  @Test
+  void concurrentProducers() throws Exception {
+    SqlLogRingBuffer<Integer> buffer = new SqlLogRingBuffer<>(1024);
+    int producers = 4;
+    int perProducer = 10_000;
+    AtomicInteger dropped = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(producers);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    for (int p = 0; p < producers; p++) {
+      executor.submit(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          if (!buffer.offer(i)) {
+            dropped.incrementAndGet();
+          }
+        }
+        done.countDown();
+      });
+    }
+
+    int consumed = 0;
+    while (done.getCount() > 0 || buffer.size() > 0) {
+      if (buffer.poll() != null) {
+        consumed++;
+      }
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+    // 버려진 것 외에는 하나도 잃어버리지 않는다
+    assertThat(consumed + dropped.get()).isEqualTo(producers * perProducer);
+  }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.config.p6spy;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 배치 fetch(default_batch_fetch_size) 가 켜져 있으면 컬렉션 지연 로딩이 in 쿼리 하나로 묶이므로 끈다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@Transactional
+class StatementCountingJdbcEventListenerTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  CountTaskExecutor countTaskExecutor;
+
+  @AfterEach
+  void after() {
+    RequestStatements.finish();
+  }
+
+  @Test
+  void detectNPlusOne() {
+    for (int i = 0; i < 5; i++) {
+      Team team = new Team("team" + i);
+      em.persist(team);
+      em.persist(new Member("member" + i, i, team));
+    }
+    em.flush();
+    em.clear();
+
+    RequestStatements.start("GET /test", 100, StatementBudgetMode.LOG);
+
+    // 팀마다 members 컬렉션을 지연 로딩 (N+1)
+    List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+    teams.forEach(team -> team.getMembers().size());
+
+    RequestStatements statements = RequestStatements.current();
+    assertThat(statements.getTotal()).isEqualTo(1 + teams.size());
+    assertThat(statements.repeatedFingerprints(5)).hasSize(1);
+    assertThat(statements.isOverBudget()).isFalse();
+  }
+
+  @Test
+  void failOverBudget() {
+    RequestStatements.start("GET /test", 1, StatementBudgetMode.FAIL);
+
+    em.createQuery("select count(m) from Member m").getSingleResult();
+
+    assertThatThrownBy(() -> em.createQuery("select count(t) from Team t").getSingleResult())
+        .satisfies(e -> assertThat(NestedExceptionUtils.getMostSpecificCause(e))
+            .isInstanceOf(StatementBudgetExceededException.class));
+  }
+
+  @Test
+  void countConcurrentCountTowardsBudget() {
+    RequestStatements.start("GET /test", 1, StatementBudgetMode.FAIL);
+
+    em.createQuery("select count(m) from Member m").getSingleResult();
+    // 동시 count 는 count 풀 스레드에서 실행되지만 같은 요청 예산에 포함된다
+    Future<Long> count = countTaskExecutor.submitReadOnly(
+        () -> em.createQuery("select count(t) from Team t", Long.class).getSingleResult());
+
+    assertThatThrownBy(() -> countTaskExecutor.join(count))
+        .satisfies(e -> assertThat(NestedExceptionUtils.getMostSpecificCause(e))
+            .isInstanceOf(StatementBudgetExceededException.class));
+    assertThat(RequestStatements.current().getTotal()).isEqualTo(2);
+
+    // 작업이 끝나면 풀 스레드에서는 풀린다
+    assertThat(countTaskExecutor.join(countTaskExecutor.submitReadOnly(RequestStatements::current))).isNull();
+  }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSortKey;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Test
+  void cursorMalformed() throws Exception {
+    mockMvc.perform(get("/v6/members").param("cursor", "not-a-cursor"))
+           .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void cursorSortKeyMismatch() throws Exception {
+    String cursor = MemberCursor.after(MemberSortKey.AGE, new MemberTeamDto(1L, "member1", 10, 1L, "teamA")).encode();
+
+    mockMvc.perform(get("/v6/members").param("cursor", cursor).param("sortKey", "USERNAME"))
+           .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/v6/members").param("cursor", cursor).param("sortKey", "AGE"))
+           .andExpect(status().isOk());
+    mockMvc.perform(get("/v6/members").param("cursor", cursor))
+           .andExpect(status().isOk());
+  }
+
+  @Test
+  void cursorAgeNotNumber() throws Exception {
+    String cursor = Base64.getUrlEncoder().withoutPadding()
+                          .encodeToString("AGE|+abc|5".getBytes(StandardCharsets.UTF_8));
+
+    mockMvc.perform(get("/v6/members").param("cursor", cursor))
+           .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void cursorSize() throws Exception {
+    mockMvc.perform(get("/v6/members").param("size", "0"))
+           .andExpect(status().isBadRequest());
+    // 최대 건수로 줄여서 조회한다 (limit(size + 1) overflow 없음)
+    mockMvc.perform(get("/v6/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+           .andExpect(status().isOk());
+  }
+
+  @Test
+  void statementsPerEndpoint() throws Exception {
+    // 검색 결과 캐시를 피하도록 다른 테스트와 겹치지 않는 조건으로 조회한다
+    mockMvc.perform(get("/v1/members").param("username", "statementsPerEndpoint"))
+           .andExpect(status().isOk());
+
+    // 인터셉터가 매핑 패턴 단위로 요청당 문장 수를 기록한다
+    mockMvc.perform(get("/monitor/statements"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$['GET /v1/members'].requests").value(greaterThanOrEqualTo(1)))
+           .andExpect(jsonPath("$['GET /v1/members'].maxStatements").value(greaterThanOrEqualTo(1)));
+  }
+}
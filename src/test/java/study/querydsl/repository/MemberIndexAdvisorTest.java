@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.config.p6spy.SqlLatencyRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberIndexAdvisorTest {
+
+  @Autowired
+  MemberIndexAdvisor memberIndexAdvisor;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Test
+  void shapeOfFingerprint() {
+    MemberIndexAdvisor.Shape shape = MemberIndexAdvisor.shapeOf(
+        "select m1_0.member_id,m1_0.username,m1_0.age,t1_0.team_id,t1_0.name from member m1_0 "
+            + "join team t1_0 on t1_0.team_id=m1_0.team_id "
+            + "where m1_0.username=? and m1_0.team_id in(?) and m1_0.age>=? and m1_0.age<=? "
+            + "order by m1_0.age desc offset ? rows fetch first ? rows only");
+
+    assertThat(shape.equality()).containsExactly("team_id", "username");
+    assertThat(shape.range()).containsExactly("age");
+    assertThat(shape.sort()).containsExactly("age");
+    // =, 정렬, 범위 순서 (정렬과 범위가 같은 컬럼이면 한 번만)
+    assertThat(shape.indexColumns()).containsExactly("team_id", "username", "age");
+  }
+
+  @Test
+  void ignoreOtherTables() {
+    assertThat(MemberIndexAdvisor.shapeOf("select t1_0.team_id from team t1_0 where t1_0.name=?")).isNull();
+    assertThat(MemberIndexAdvisor.shapeOf("update member set age=? where member_id=?")).isNull();
+  }
+
+  @Test
+  void recommendIndexForObservedCondition() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member1");
+    condition.setAgeGoe(10);
+    memberIndexAdvisor.record(condition, Sort.unsorted());
+    memberIndexAdvisor.record(condition, Sort.unsorted());
+
+    List<MemberIndexAdvisor.Recommendation> recommendations = memberIndexAdvisor.advise();
+
+    assertThat(recommendations)
+        .filteredOn(recommendation -> recommendation.columns().equals(List.of("username", "age")))
+        .singleElement()
+        .satisfies(recommendation -> {
+          assertThat(recommendation.ddl()).isEqualTo("create index idx_member_username_age on member (username, age)");
+          assertThat(recommendation.calls()).isGreaterThanOrEqualTo(2);
+          assertThat(recommendation.currentPlan()).containsIgnoringCase("tableScan");
+        });
+  }
+
+  @Test
+  void skipColumnsAlreadyIndexed() {
+    // team_id 는 FK 인덱스가 있다
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    memberIndexAdvisor.record(condition, Sort.unsorted());
+
+    assertThat(memberIndexAdvisor.advise())
+        .noneMatch(recommendation -> recommendation.columns().equals(List.of("team_id")));
+  }
+
+  @Test
+  void recordKnownSortPropertiesOnly() {
+    MemberIndexAdvisor advisor = new MemberIndexAdvisor(dataSource, new SqlLatencyRegistry(10), 10);
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    advisor.record(condition, Sort.by("age", "unknown", "username"));
+    advisor.record(condition, Sort.by("unknown"));
+
+    // 모르는 속성부터는 버린다. 정렬이 모두 모르는 속성이면 형태가 비어서 기록하지 않는다
+    assertThat(advisor.recordedShapes())
+        .containsExactly(new MemberIndexAdvisor.Shape(List.of(), List.of(), List.of("age")));
+  }
+
+  @Test
+  void capRecordedShapes() {
+    MemberIndexAdvisor advisor = new MemberIndexAdvisor(dataSource, new SqlLatencyRegistry(10), 1);
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    advisor.record(condition, Sort.by("age"));
+    advisor.record(condition, Sort.by("username"));
+
+    assertThat(advisor.recordedShapes())
+        .containsExactly(new MemberIndexAdvisor.Shape(List.of(), List.of(), List.of("age")));
+  }
+}
@@ -3,6 +3,9 @@ package study.querydsl.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,8 +14,10 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkInsertResult;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -41,6 +46,48 @@ class MemberJpaRepositoryTest {
     assertThat(result1).containsExactly(member);
   }
 
+  @Test
+  void preloadTeams() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamB));
+    em.flush();
+    em.clear();
+
+    List<Member> members = memberJpaRepository.findAll();
+    memberJpaRepository.preloadTeams(members);
+
+    // 팀 엔티티가 영속성 컨텍스트에 있으므로 프록시 초기화에 쿼리가 필요 없다
+    Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    long statements = statistics.getPrepareStatementCount();
+
+    assertThat(members).extracting(m -> m.getTeam().getName()).containsExactlyInAnyOrder("teamA", "teamB");
+    assertThat(members).allMatch(m -> Hibernate.isInitialized(m.getTeam()));
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+  }
+
+  @Test
+  void saveAll() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    BulkInsertResult result = memberJpaRepository.saveAll(IntStream.range(0, 10_000)
+        .mapToObj(i -> Member.forBulkInsert("member" + i, i % 100, teamA)));
+
+    assertThat(result.rows()).isEqualTo(10_000);
+    assertThat(result.rowsPerSecond()).isPositive();
+    assertThat(em.contains(teamA)).isFalse();
+    // 저장한 회원이 팀 컬렉션에 쌓이지 않는다
+    assertThat(teamA.getMembers()).isEmpty();
+
+    Long count = em.createQuery("select count(m) from Member m where m.team.name = 'teamA'", Long.class)
+        .getSingleResult();
+    assertThat(count).isEqualTo(10_000);
+  }
+
   @Test
   void basicQuerydslTest() {
     Member member = new Member("member1", 10);
@@ -7,13 +7,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.p6spy.RequestStatements;
+import study.querydsl.config.p6spy.StatementBudgetMode;
+import study.querydsl.dto.CursorPage;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.PageOptions;
+import study.querydsl.repository.support.PagingStrategy;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,6 +40,12 @@ class MemberRepositoryTest {
   @Autowired
   MemberRepository memberRepository;
 
+  @Autowired
+  MemberSearchShapeCache memberSearchShapeCache;
+
+  @Autowired
+  MemberSqlRepository memberSqlRepository;
+
   @Test
   void basicTest() {
     Member member = new Member("member1", 10);
@@ -72,6 +89,48 @@ class MemberRepositoryTest {
     assertThat(result).extracting("username").containsExactly("member4");
   }
 
+  @Test
+  void searchNativeSql() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, teamB));
+    // querydsl-sql 은 영속성 컨텍스트를 거치지 않지만, 읽기-쓰기 트랜잭션이면 리포지토리가 조회 전에 flush 한다
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    condition.setTeamName("teamB");
+
+    List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+    assertThat(result).extracting("username").containsExactly("member3", "member4");
+    assertThat(result).containsExactlyElementsOf(memberRepository.search(condition));
+    assertThat(memberSqlRepository.search(new MemberSearchCondition(), 1, 2)).hasSize(2);
+  }
+
+  @Test
+  void searchReusesRenderedShape() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+
+    MemberSearchCondition condition1 = new MemberSearchCondition();
+    condition1.setUsername("member1");
+    MemberSearchCondition condition2 = new MemberSearchCondition();
+    condition2.setUsername("member2");
+
+    long hits = memberSearchShapeCache.stats().hits();
+
+    assertThat(memberRepository.search(condition1)).extracting("username").containsExactly("member1");
+    assertThat(memberRepository.search(condition2)).extracting("username").containsExactly("member2");
+    assertThat(memberSearchShapeCache.stats().hits()).isGreaterThan(hits);
+  }
+
   @Test
   void searchPageSimple() {
     Team teamA = new Team("teamA");
@@ -126,6 +185,184 @@ class MemberRepositoryTest {
     assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
   }
 
+  @Test
+  void searchPageComplexCountWithoutTeamJoin() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 4; i++) {
+      em.persist(new Member("member" + i, 10 + i, teamA));
+    }
+    // 팀이 없는 회원은 content(inner join)와 count 모두에서 빠진다
+    em.persist(new Member("noTeam", 10));
+    em.flush();
+    em.clear();
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(10);
+    PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("age"));
+
+    RequestStatements.start("searchPageComplexCountWithoutTeamJoin", 100, StatementBudgetMode.LOG);
+    Page<MemberTeamDto> complex;
+    Page<MemberTeamDto> usingSort;
+    RequestStatements statements;
+    try {
+      complex = memberRepository.searchPageComplex(condition, pageRequest);
+      usingSort = memberRepository.searchPageComplexUsingSort(condition, pageRequest);
+    } finally {
+      statements = RequestStatements.finish();
+    }
+
+    assertThat(complex.getTotalElements()).isEqualTo(4);
+    assertThat(usingSort.getTotalElements()).isEqualTo(4);
+    List<String> countSql = statements.getFingerprints().keySet().stream()
+                                      .filter(sql -> sql.startsWith("select count("))
+                                      .toList();
+    assertThat(countSql).isNotEmpty();
+    assertThat(countSql).allSatisfy(sql -> {
+      assertThat(sql).doesNotContain("join");
+      assertThat(sql).contains("team_id is not null");
+    });
+  }
+
+  @Test
+  void searchPageComplexCapped() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    em.persist(teamA);
+    em.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+
+    PageRequest pageRequest = PageRequest.of(0, 2);
+    CountedPage<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest,
+        PageOptions.of(CountStrategy.CAPPED));
+
+    assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+    assertThat(result.getTotalElements()).isEqualTo(3);
+    assertThat(result.getCountStrategy()).isEqualTo(CountStrategy.CAPPED);
+    assertThat(result.isTotalCapped()).isFalse();
+  }
+
+  @Test
+  void searchPageComplexDeferredJoin() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    em.persist(teamA);
+    em.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    em.flush();
+
+    PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+    RequestStatements.start("searchPageComplexDeferredJoin", 100, StatementBudgetMode.LOG);
+    Page<MemberTeamDto> result;
+    RequestStatements statements;
+    try {
+      result = memberRepository.searchPageComplexUsingSort(condition, pageRequest,
+          PageOptions.DEFAULT.withPagingStrategy(PagingStrategy.DEFERRED_JOIN));
+    } finally {
+      statements = RequestStatements.finish();
+    }
+
+    assertThat(result.getContent()).extracting("username").containsExactly("member2", "member1");
+    assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamA");
+    assertThat(result.getTotalElements()).isEqualTo(4);
+
+    // id 만 페이징하는 1단계 쿼리는 team 을 join 하지 않는다
+    List<String> idSql = statements.getFingerprints().keySet().stream()
+                                   .filter(sql -> sql.matches("select \\w+\\.member_id from member .*"))
+                                   .toList();
+    assertThat(idSql).hasSize(1);
+    assertThat(idSql.get(0)).doesNotContain("join").contains("team_id is not null");
+  }
+
+  @Test
+  void searchByCursor() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    em.persist(teamA);
+    em.persist(teamB);
+
+    Member member1 = new Member("member1", 40, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 20, teamB);
+    Member member4 = new Member("member4", 10, teamB);
+
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    CursorPage<MemberTeamDto> first = memberRepository.searchByCursor(condition, MemberCursor.first(MemberSortKey.AGE), 2);
+
+    assertThat(first.getContent()).extracting("username").containsExactly("member4", "member2");
+    assertThat(first.isHasNext()).isTrue();
+
+    CursorPage<MemberTeamDto> second = memberRepository.searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 2);
+
+    assertThat(second.getContent()).extracting("username").containsExactly("member3", "member1");
+    assertThat(second.isHasNext()).isFalse();
+    assertThat(second.getNextCursor()).isNull();
+  }
+
+  @Test
+  void searchByCursorNullUsername() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    Member member1 = new Member(null, 10, teamA);
+    Member member2 = new Member(null, 20, teamA);
+    Member member3 = new Member("a", 30, teamA);
+    Member member4 = new Member("b", 40, teamA);
+    em.persist(member1);
+    em.persist(member2);
+    em.persist(member3);
+    em.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    List<Long> seen = new ArrayList<>();
+    MemberCursor cursor = MemberCursor.first(MemberSortKey.USERNAME);
+    while (true) {
+      CursorPage<MemberTeamDto> page = memberRepository.searchByCursor(condition, cursor, 1);
+      page.getContent().forEach(dto -> seen.add(dto.getMemberId()));
+      if (!page.isHasNext()) {
+        break;
+      }
+      // null 정렬 키도 문자열로 왕복한다
+      cursor = MemberCursor.decode(page.getNextCursor());
+    }
+
+    // null 이 가장 앞, 같은 값 안에서는 memberId 순서
+    assertThat(seen).containsExactly(member1.getId(), member2.getId(), member3.getId(), member4.getId());
+  }
+
   @Test
   void querydslPredicateExecutorTest() {
     //Spring Data Jpa에서 querydslPredicateExecutor를 사용하면
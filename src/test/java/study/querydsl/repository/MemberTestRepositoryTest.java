@@ -0,0 +1,131 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.p6spy.RequestStatements;
+import study.querydsl.config.p6spy.StatementBudgetMode;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.DeferredJoinFetcher;
+import study.querydsl.repository.support.FetchPlan;
+import study.querydsl.repository.support.PageOptions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  MemberTestRepository memberTestRepository;
+
+  @BeforeEach
+  void before() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  void applyPaginationReadOnly() {
+    Page<Member> result = memberTestRepository.applyPagination2(new MemberSearchCondition(), PageRequest.of(0, 10),
+        PageOptions.DEFAULT.withReadOnly(true));
+
+    Session session = em.unwrap(Session.class);
+    assertThat(result.getContent()).hasSize(2).allMatch(session::isReadOnly);
+
+    // 읽기 전용 엔티티는 변경해도 flush 되지 않는다
+    result.getContent().get(0).setUsername("changed");
+    em.flush();
+    em.clear();
+
+    assertThat(em.createQuery("select count(m) from Member m where m.username = 'changed'", Long.class)
+        .getSingleResult()).isZero();
+  }
+
+  @Test
+  void searchPageByApplyPageReadOnly() {
+    Session session = em.unwrap(Session.class);
+
+    Page<Member> readOnly = memberTestRepository.searchPageByApplyPage(new MemberSearchCondition(), PageRequest.of(0, 10), true);
+    assertThat(readOnly.getContent()).hasSize(2).allMatch(session::isReadOnly);
+    assertThat(readOnly.getTotalElements()).isEqualTo(2);
+
+    em.clear();
+
+    Page<Member> managed = memberTestRepository.searchPageByApplyPage(new MemberSearchCondition(), PageRequest.of(0, 10));
+    assertThat(managed.getContent()).noneMatch(session::isReadOnly);
+  }
+
+  @Test
+  void applyPaginationWithFetchPlan() {
+    CountedPage<Member> result = memberTestRepository.applyPaginationWithTeam(new MemberSearchCondition(),
+        PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "username")), PageOptions.DEFAULT);
+
+    assertThat(result.getTotalElements()).isEqualTo(2);
+    assertThat(result.getContent()).extracting("username").containsExactly("member2");
+    assertThat(Hibernate.isInitialized(result.getContent().get(0).getTeam())).isTrue();
+  }
+
+  @Test
+  void applyPaginationWithCollectionFetchPlan() {
+    JPAQuery<Member> contentQuery = new JPAQuery<Member>(em).select(member)
+                                                             .from(member)
+                                                             .orderBy(member.username.desc())
+                                                             .offset(0)
+                                                             .limit(1);
+
+    RequestStatements.start("applyPaginationWithCollectionFetchPlan", 100, StatementBudgetMode.LOG);
+    RequestStatements statements;
+    List<Member> content;
+    try {
+      content = DeferredJoinFetcher.fetch(em, contentQuery, FetchPlan.of(member.team, member.team.members), false);
+    } finally {
+      statements = RequestStatements.finish();
+    }
+
+    // 페이징은 id 조회 SQL 에서 끝나고, 컬렉션을 join 하는 2단계 쿼리에는 offset / limit 이 없다
+    assertThat(statements.getFingerprints().keySet())
+        .filteredOn(sql -> sql.contains("fetch first"))
+        .hasSize(1)
+        .allSatisfy(sql -> assertThat(sql).doesNotContain("join"));
+    assertThat(statements.getFingerprints().keySet())
+        .filteredOn(sql -> sql.contains("join"))
+        .isNotEmpty()
+        .noneMatch(sql -> sql.contains("fetch first") || sql.contains("offset"));
+
+    assertThat(content).extracting("username").containsExactly("member2");
+    Team team = content.get(0).getTeam();
+    assertThat(Hibernate.isInitialized(team)).isTrue();
+    assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+    assertThat(team.getMembers()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+  }
+
+  @Test
+  void fetchPlanAttributePath() {
+    assertThat(FetchPlan.of(member.team, member.team.members).getAttributePaths())
+        .containsExactly("team", "team.members");
+  }
+}
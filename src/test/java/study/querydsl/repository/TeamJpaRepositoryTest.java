@@ -0,0 +1,135 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.p6spy.RequestStatements;
+import study.querydsl.config.p6spy.StatementBudgetMode;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkInsertResult;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamJpaRepositoryTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  TeamJpaRepository teamJpaRepository;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Test
+  void teamSecondLevelCache() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    Member member1 = new Member("member1", 10, teamA);
+    em.persist(member1);
+    em.flush();
+    em.clear();
+
+    Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+    // 첫 조회에서 캐시에 올라가고, 이후 지연 로딩은 캐시에서 가져온다
+    em.find(Team.class, teamA.getId());
+    em.clear();
+    long hits = statistics.getDomainDataRegionStatistics("team").getHitCount();
+
+    Member findMember = em.find(Member.class, member1.getId());
+    assertThat(findMember.getTeam().getName()).isEqualTo("teamA");
+    assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isGreaterThan(hits);
+  }
+
+  @Test
+  void saveAll() {
+    BulkInsertResult result = teamJpaRepository.saveAll(IntStream.range(0, 250).mapToObj(i -> new Team("bulkTeam" + i)));
+
+    assertThat(result.rows()).isEqualTo(250);
+    Long count = em.createQuery("select count(t) from Team t where t.name like 'bulkTeam%'", Long.class)
+        .getSingleResult();
+    assertThat(count).isEqualTo(250);
+  }
+
+  @Test
+  void findIdsByName() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    assertThat(teamJpaRepository.findIdsByName("teamA")).containsExactly(teamA.getId());
+    assertThat(teamJpaRepository.findIdsByName("unknown")).isEmpty();
+  }
+
+  @Test
+  void searchUnknownTeam() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+
+    em.flush();
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("unknown");
+
+    // 없는 팀이면 팀 id 조회(쿼리 캐시 대상) 외에는 content / count 를 실행하지 않는다
+    RequestStatements.start("searchUnknownTeam", 100, StatementBudgetMode.LOG);
+    RequestStatements statements;
+    try {
+      assertThat(memberRepository.search(condition)).isEmpty();
+      assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    } finally {
+      statements = RequestStatements.finish();
+    }
+    assertThat(statements.getTotal()).isLessThanOrEqualTo(2);
+    assertThat(statements.getFingerprints().keySet()).noneMatch(sql -> sql.contains(" member "));
+
+    // 팀 이름은 2차 캐시에서 채우므로 content 쿼리는 team 을 join 하지 않는다
+    condition.setTeamName("teamA");
+    RequestStatements.start("searchTeam", 100, StatementBudgetMode.LOG);
+    try {
+      assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("teamA");
+    } finally {
+      statements = RequestStatements.finish();
+    }
+    assertThat(statements.getFingerprints().keySet())
+        .filteredOn(sql -> sql.contains(" member "))
+        .hasSize(1)
+        .allSatisfy(sql -> assertThat(sql).doesNotContain("join"));
+  }
+
+  @Test
+  void preloadMembers() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.flush();
+    em.clear();
+
+    List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+    assertThat(teams).noneMatch(t -> Hibernate.isInitialized(t.getMembers()));
+
+    teamJpaRepository.preloadMembers(teams);
+
+    assertThat(teams).allMatch(t -> Hibernate.isInitialized(t.getMembers()));
+    assertThat(teams).extracting(t -> t.getMembers().size()).containsExactlyInAnyOrder(2, 1);
+  }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * chunk 마다 새 트랜잭션으로 커밋하므로 테스트 트랜잭션을 사용하지 않는다. (chunk-size: 10)
+ */
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ChunkedBulkExecutor chunkedBulkExecutor;
+
+  TransactionTemplate transaction;
+
+  @BeforeEach
+  void before() {
+    transaction = new TransactionTemplate(transactionManager);
+    transaction.executeWithoutResult(status -> {
+      Team teamA = new Team("bulkTeam");
+      em.persist(teamA);
+      for (int i = 0; i < 25; i++) {
+        em.persist(new Member("bulk" + i, i, teamA));
+      }
+    });
+  }
+
+  @AfterEach
+  void after() {
+    transaction.executeWithoutResult(status -> {
+      em.createQuery("delete from Member m where m.team.name = 'bulkTeam'").executeUpdate();
+      em.createQuery("delete from Team t where t.name = 'bulkTeam'").executeUpdate();
+    });
+  }
+
+  @Test
+  void updateInChunks() {
+    List<BulkProgress> reported = new ArrayList<>();
+
+    BulkProgress result = chunkedBulkExecutor.update(member, member.username.startsWith("bulk"),
+        update -> update.set(member.age, member.age.add(100)), 0, reported::add);
+
+    assertThat(result.affectedRows()).isEqualTo(25);
+    assertThat(reported).hasSize((int) result.chunks());
+    assertThat(reported.get(reported.size() - 1)).isEqualTo(result);
+    assertThat(countBulkMembers(100)).isEqualTo(25);
+  }
+
+  @Test
+  void resumeDeleteAfterFailure() {
+    List<BulkProgress> reported = new ArrayList<>();
+
+    // 두 번째 chunk 커밋 후 진행 보고에서 실패하면 중단한다
+    assertThatThrownBy(() -> chunkedBulkExecutor.delete(member, member.username.startsWith("bulk"), 0, progress -> {
+      reported.add(progress);
+      if (progress.chunks() == 2) {
+        throw new IllegalStateException("stop");
+      }
+    })).isInstanceOf(ChunkedBulkException.class)
+       .hasCauseInstanceOf(IllegalStateException.class)
+       .extracting(e -> ((ChunkedBulkException) e).getProgress())
+       .isEqualTo(reported.get(1));
+
+    long lastId = reported.get(1).lastId();
+    assertThat(countBulkMembers(0)).isEqualTo(25 - reported.get(1).affectedRows());
+
+    BulkProgress resumed = chunkedBulkExecutor.delete(member, member.username.startsWith("bulk"), lastId, progress -> {
+    });
+
+    assertThat(resumed.affectedRows()).isEqualTo(25 - reported.get(1).affectedRows());
+    assertThat(countBulkMembers(0)).isZero();
+  }
+
+  @Test
+  void chunkFailureKeepsCommittedChunks() {
+    Long failingId = transaction.execute(status -> em
+        .createQuery("select m.id from Member m where m.username = 'bulk15'", Long.class)
+        .getSingleResult());
+    List<BulkProgress> reported = new ArrayList<>();
+
+    // age = 15 인 행에서 0 으로 나누므로 그 행이 들어 있는 chunk 의 update 가 실패한다
+    ChunkedBulkException exception = catchThrowableOfType(() -> chunkedBulkExecutor.update(member,
+        member.username.startsWith("bulk"),
+        update -> update.set(member.age,
+            member.age.add(100).add(member.age.divide(member.age.subtract(15)).multiply(0))),
+        0, reported::add), ChunkedBulkException.class);
+
+    BulkProgress progress = exception.getProgress();
+    assertThat(progress.lastId()).isLessThan(failingId);
+    // bulk15 는 16번째 행이므로 첫 chunk 는 커밋된다
+    assertThat(reported).isNotEmpty();
+    assertThat(progress).isEqualTo(reported.get(reported.size() - 1));
+
+    // 실패한 chunk 는 롤백되고, 커밋된 chunk(lastId 이하)의 변경만 남는다
+    assertThat(countBulkMembers(100)).isEqualTo(progress.affectedRows());
+    Long updatedAfterLastId = transaction.execute(status -> em
+        .createQuery("select count(m) from Member m where m.username like 'bulk%' and m.age >= 100 and m.id > :lastId",
+            Long.class)
+        .setParameter("lastId", progress.lastId())
+        .getSingleResult());
+    assertThat(updatedAfterLastId).isZero();
+  }
+
+  private long countBulkMembers(int minAge) {
+    return transaction.execute(status -> em
+        .createQuery("select count(m) from Member m where m.username like 'bulk%' and m.age >= :minAge", Long.class)
+        .setParameter("minAge", minAge)
+        .getSingleResult());
+  }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueryBuilderTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  JPAQueryFactory queryFactory;
+
+  @BeforeEach
+  void before() {
+    queryFactory = new JPAQueryFactory(em);
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(new Member("member4", 40, null));
+  }
+
+  @Test
+  void pruneUnreferencedLeftJoin() {
+    JPAQuery<Member> contentQuery = queryFactory
+        .selectFrom(member)
+        .leftJoin(member.team, team).fetchJoin()
+        .where(member.age.goe(20))
+        .orderBy(member.username.desc())
+        .offset(1)
+        .limit(1);
+
+    JPAQuery<Long> countQuery = CountQueryBuilder.from(em, contentQuery);
+
+    assertThat(countQuery.toString()).doesNotContain("join", "order by");
+    assertThat(countQuery.fetchOne()).isEqualTo(3);
+  }
+
+  @Test
+  void keepReferencedJoin() {
+    JPAQuery<Member> referenced = queryFactory
+        .selectFrom(member)
+        .leftJoin(member.team, team)
+        .where(team.name.eq("teamA"));
+
+    JPAQuery<Member> innerJoinWithCondition = queryFactory
+        .selectFrom(member)
+        .join(member.team, team).on(team.name.eq("teamB"));
+
+    assertThat(CountQueryBuilder.from(em, referenced).fetchOne()).isEqualTo(2);
+    assertThat(CountQueryBuilder.from(em, innerJoinWithCondition).toString()).contains("join");
+    assertThat(CountQueryBuilder.from(em, innerJoinWithCondition).fetchOne()).isEqualTo(1);
+  }
+
+  @Test
+  void replaceUnreferencedInnerJoinWithNotNull() {
+    JPAQuery<Member> innerJoin = queryFactory
+        .selectFrom(member)
+        .join(member.team, team).fetchJoin()
+        .where(member.age.goe(20));
+
+    JPAQuery<Long> countQuery = CountQueryBuilder.from(em, innerJoin);
+
+    // 팀이 없는 member4 는 inner join 과 마찬가지로 세지 않는다
+    assertThat(countQuery.toString()).doesNotContain("join").contains("member1.team is not null");
+    assertThat(countQuery.fetchOne()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.config.p6spy.TableChangedEvent;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountQueryCacheTest {
+
+  @Test
+  void cacheByNormalizedCondition() {
+    CountQueryCache cache = new CountQueryCache(true, Duration.ofMinutes(1), 10);
+    AtomicInteger executed = new AtomicInteger();
+
+    MemberSearchCondition condition1 = new MemberSearchCondition();
+    condition1.setTeamName("");
+    MemberSearchCondition condition2 = new MemberSearchCondition();
+
+    long total1 = cache.getOrCount(new CountQueryCache.Key("q", condition1.normalize()), () -> executed.incrementAndGet() * 10L);
+    long total2 = cache.getOrCount(new CountQueryCache.Key("q", condition2.normalize()), () -> executed.incrementAndGet() * 10L);
+
+    assertThat(total1).isEqualTo(10);
+    assertThat(total2).isEqualTo(10);
+    assertThat(executed.get()).isEqualTo(1);
+    assertThat(cache.stats().hits()).isEqualTo(1);
+    assertThat(cache.stats().misses()).isEqualTo(1);
+  }
+
+  @Test
+  void invalidateOnMemberChange() {
+    CountQueryCache cache = new CountQueryCache(true, Duration.ofMinutes(1), 10);
+    CountQueryCache.Key key = new CountQueryCache.Key("q", new MemberSearchCondition());
+    cache.getOrCount(key, () -> 1L);
+
+    cache.onTableChanged(new TableChangedEvent("hello"));
+    assertThat(cache.getOrCount(key, () -> 2L)).isEqualTo(1);
+
+    cache.onTableChanged(new TableChangedEvent("member"));
+    assertThat(cache.getOrCount(key, () -> 2L)).isEqualTo(2);
+  }
+
+  @Test
+  void evictLeastRecentlyUsed() {
+    CountQueryCache cache = new CountQueryCache(true, Duration.ofMinutes(1), 2);
+
+    cache.getOrCount(new CountQueryCache.Key("a", null), () -> 1L);
+    cache.getOrCount(new CountQueryCache.Key("b", null), () -> 2L);
+    cache.getOrCount(new CountQueryCache.Key("c", null), () -> 3L);
+
+    assertThat(cache.stats().size()).isEqualTo(2);
+    assertThat(cache.stats().evictions()).isEqualTo(1);
+    assertThat(cache.getOrCount(new CountQueryCache.Key("a", null), () -> 10L)).isEqualTo(10);
+  }
+}
@@ -0,0 +1,218 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class PageCounterTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  CountQueryCache countQueryCache;
+
+  @Autowired
+  CountTaskExecutor countTaskExecutor;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Value("${querydsl.count.estimate-sql:select row_count_estimate from information_schema.tables where table_schema = current_schema and lower(table_name) = lower(?1)}")
+  String estimateSql;
+
+  JPAQueryFactory queryFactory;
+  PageCounter pageCounter;
+
+  @BeforeEach
+  void before() {
+    queryFactory = new JPAQueryFactory(em);
+    pageCounter = new PageCounter(em, countQueryCache, countTaskExecutor, 2, estimateSql);
+    for (int i = 0; i < 6; i++) {
+      em.persist(new Member("pageCounter", i));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  void cappedOverLimit() {
+    PageRequest pageable = PageRequest.of(0, 2);
+    JPAQuery<Long> countQuery = queryFactory.select(member.count())
+                                            .from(member)
+                                            .where(member.username.eq("pageCounter"));
+    List<Member> content = queryFactory.selectFrom(member)
+                                       .where(member.username.eq("pageCounter"))
+                                       .limit(2)
+                                       .fetch();
+
+    CountedPage<Member> page = pageCounter.getPage(() -> content, pageable, PageOptions.of(CountStrategy.CAPPED),
+        null, countQuery, () -> {
+          throw new AssertionError("exact count");
+        });
+
+    // limit = max(cap, offset + pageSize + 1) = 3
+    assertThat(page.getCountStrategy()).isEqualTo(CountStrategy.CAPPED);
+    assertThat(page.isTotalCapped()).isTrue();
+    assertThat(page.getTotalElements()).isEqualTo(3);
+    assertThat(page.getTotalLabel()).isEqualTo("3+");
+    assertThat(page.hasNext()).isTrue();
+  }
+
+  @Test
+  void cappedUnderLimit() {
+    PageRequest pageable = PageRequest.of(1, 2);
+    JPAQuery<Long> countQuery = queryFactory.select(member.count())
+                                            .from(member)
+                                            .where(member.username.eq("pageCounter"), member.age.lt(4));
+    List<Member> content = queryFactory.selectFrom(member)
+                                       .where(member.username.eq("pageCounter"), member.age.lt(4))
+                                       .offset(2)
+                                       .limit(2)
+                                       .fetch();
+
+    CountedPage<Member> page = pageCounter.getPage(() -> content, pageable, PageOptions.of(CountStrategy.CAPPED),
+        null, countQuery, () -> 0L);
+
+    // 마지막 페이지가 꽉 차 있으므로 count 를 실행한다. limit = 5 보다 적다
+    assertThat(page.isTotalCapped()).isFalse();
+    assertThat(page.getTotalElements()).isEqualTo(4);
+    assertThat(page.getTotalLabel()).isEqualTo("4");
+  }
+
+  @Test
+  void estimatedWithoutFilter() {
+    PageRequest pageable = PageRequest.of(0, 2);
+    JPAQuery<Long> countQuery = queryFactory.select(member.count()).from(member);
+    List<Member> content = queryFactory.selectFrom(member).limit(2).fetch();
+
+    CountedPage<Member> page = pageCounter.getPage(() -> content, pageable, PageOptions.of(CountStrategy.ESTIMATED),
+        null, countQuery, () -> {
+          throw new AssertionError("exact count");
+        });
+
+    assertThat(page.getCountStrategy()).isEqualTo(CountStrategy.ESTIMATED);
+    assertThat(page.isTotalCapped()).isFalse();
+  }
+
+  @Test
+  void estimatedFallsBackToCappedWhenFiltered() {
+    PageRequest pageable = PageRequest.of(0, 2);
+    JPAQuery<Long> countQuery = queryFactory.select(member.count())
+                                            .from(member)
+                                            .where(member.username.eq("pageCounter"));
+    List<Member> content = queryFactory.selectFrom(member)
+                                       .where(member.username.eq("pageCounter"))
+                                       .limit(2)
+                                       .fetch();
+
+    CountedPage<Member> page = pageCounter.getPage(() -> content, pageable, PageOptions.of(CountStrategy.ESTIMATED),
+        null, countQuery, () -> {
+          throw new AssertionError("exact count");
+        });
+
+    // 통계 row 수는 조건을 반영하지 못하므로 CAPPED 로 센다
+    assertThat(page.getCountStrategy()).isEqualTo(CountStrategy.CAPPED);
+    assertThat(page.getTotalLabel()).isEqualTo("3+");
+  }
+
+  @Test
+  void concurrentCountTimeout() throws Exception {
+    CountTaskExecutor executor = new CountTaskExecutor(transactionManager, 1, 1, Duration.ofMillis(100));
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      Future<Long> future = executor.submitReadOnly(() -> {
+        await(release);
+        return 1L;
+      });
+
+      assertThatThrownBy(() -> executor.join(future)).isInstanceOf(QueryTimeoutException.class);
+      assertThat(future.isCancelled()).isTrue();
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void concurrentCountFallsBackToSequentialWhenPoolIsFull() {
+    CountTaskExecutor executor = new CountTaskExecutor(transactionManager, 1, 1, Duration.ofSeconds(5));
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      // 스레드 1개, 큐 1개를 모두 채운다
+      executor.submitReadOnly(() -> await(release));
+      executor.submitReadOnly(() -> await(release));
+      assertThatThrownBy(() -> executor.submitReadOnly(() -> 0L)).isInstanceOf(RejectedExecutionException.class);
+
+      PageCounter counter = new PageCounter(em, countQueryCache, executor, 2, estimateSql);
+      AtomicReference<Thread> countThread = new AtomicReference<>();
+      CountQueryCache.Key key = new CountQueryCache.Key("PageCounterTest.sequential", new MemberSearchCondition());
+      List<Member> content = queryFactory.selectFrom(member)
+                                         .where(member.username.eq("pageCounter"))
+                                         .limit(2)
+                                         .fetch();
+
+      CountedPage<Member> page = counter.getPage(() -> content, PageRequest.of(0, 2),
+          PageOptions.of(CountStrategy.EXACT).withConcurrentCount(true), key, null, () -> {
+            countThread.set(Thread.currentThread());
+            return 6L;
+          });
+
+      assertThat(page.getTotalElements()).isEqualTo(6);
+      assertThat(countThread.get()).isSameAs(Thread.currentThread());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void concurrentCountSkipped() {
+    List<Member> content = queryFactory.selectFrom(member)
+                                       .where(member.username.eq("pageCounter"))
+                                       .fetch();
+    CountQueryCache.Key key = new CountQueryCache.Key("PageCounterTest.skipped", new MemberSearchCondition());
+
+    // content 가 페이지 크기보다 적으면 PageableExecutionUtils 가 count 를 생략하고 결과를 버린다
+    CountedPage<Member> page = pageCounter.getPage(() -> content, PageRequest.of(0, 10),
+        PageOptions.of(CountStrategy.EXACT).withConcurrentCount(true), key, null, () -> 999L);
+
+    assertThat(page.getTotalElements()).isEqualTo(6);
+    assertThat(page.getCountStrategy()).isEqualTo(CountStrategy.EXACT);
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "querydsl.phase-timing.sample-rate=1.0")
+@Transactional
+class QueryPhaseTimingTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  MemberRepository memberRepository;
+  @Autowired
+  MemberTestRepository memberTestRepository;
+  @Autowired
+  QueryPhaseStats queryPhaseStats;
+
+  @BeforeEach
+  void before() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 5; i++) {
+      em.persist(new Member("member" + i, i, teamA));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  void memberRepositoryCustomPhases() {
+    memberRepository.searchPageComplexUsingSort(new MemberSearchCondition(),
+        PageRequest.of(0, 2, Sort.by("username")));
+
+    QueryPhaseStats.Stats stats = queryPhaseStats.stats().get("MemberRepositoryImpl.searchPageComplexUsingSort");
+    assertThat(stats.calls()).isEqualTo(1);
+    assertThat(stats.phaseMeanMillis().get(QueryPhase.RENDER)).isPositive();
+    assertThat(stats.phaseMeanMillis().get(QueryPhase.EXECUTE)).isPositive();
+    // 첫 페이지가 가득 찼으므로 count 를 실행한다
+    assertThat(stats.phaseMeanMillis().get(QueryPhase.COUNT)).isPositive();
+    assertThat(stats.meanMillis()).isGreaterThanOrEqualTo(stats.phaseMeanMillis().get(QueryPhase.EXECUTE));
+  }
+
+  @Test
+  void querydslRepositorySupportPhases() {
+    long before = calls("MemberTestRepository.applyPagination2");
+
+    memberTestRepository.applyPagination2(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+    assertThat(calls("MemberTestRepository.applyPagination2")).isEqualTo(before + 1);
+  }
+
+  private long calls(String method) {
+    QueryPhaseStats.Stats stats = queryPhaseStats.stats().get(method);
+    return stats == null ? 0 : stats.calls();
+  }
+}
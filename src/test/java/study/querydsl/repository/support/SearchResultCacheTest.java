@@ -0,0 +1,106 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+import study.querydsl.config.p6spy.TableChangedEvent;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+  @Test
+  void cacheByConditionAndPageable() {
+    SearchResultCache cache = new SearchResultCache(true, Duration.ofMinutes(1), DataSize.ofKilobytes(1));
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    SearchResultCache.Key page0 = new SearchResultCache.Key("q", condition, PageRequest.of(0, 10), null);
+    SearchResultCache.Key page1 = new SearchResultCache.Key("q", condition, PageRequest.of(1, 10), null);
+
+    assertThat(cache.get(page0, executed::incrementAndGet, v -> 10)).isEqualTo(1);
+    assertThat(cache.get(page0, executed::incrementAndGet, v -> 10)).isEqualTo(1);
+    assertThat(cache.get(page1, executed::incrementAndGet, v -> 10)).isEqualTo(2);
+
+    SearchResultCache.Stats stats = cache.stats();
+    assertThat(stats.hits()).isEqualTo(1);
+    assertThat(stats.misses()).isEqualTo(2);
+    assertThat(stats.weight()).isEqualTo(20);
+  }
+
+  @Test
+  void rejectLessFrequentCandidate() {
+    // 항목 하나만 들어가는 크기
+    SearchResultCache cache = new SearchResultCache(true, Duration.ofMinutes(1), DataSize.ofBytes(100));
+    SearchResultCache.Key hot = new SearchResultCache.Key("hot", null, null, null);
+    SearchResultCache.Key cold = new SearchResultCache.Key("cold", null, null, null);
+
+    for (int i = 0; i < 5; i++) {
+      cache.get(hot, () -> "hot", v -> 100);
+    }
+    cache.get(cold, () -> "cold", v -> 100);
+
+    assertThat(cache.get(hot, () -> "reloaded", v -> 100)).isEqualTo("hot");
+    assertThat(cache.stats().rejections()).isEqualTo(1);
+
+    // 자주 요청되면 희생 후보를 밀어내고 들어온다
+    for (int i = 0; i < 10; i++) {
+      cache.get(cold, () -> "cold", v -> 100);
+    }
+    assertThat(cache.get(cold, () -> "reloaded", v -> 100)).isEqualTo("cold");
+    assertThat(cache.stats().evictions()).isEqualTo(1);
+  }
+
+  @Test
+  void invalidateOnMemberChange() {
+    SearchResultCache cache = new SearchResultCache(true, Duration.ofMinutes(1), DataSize.ofKilobytes(1));
+    SearchResultCache.Key key = new SearchResultCache.Key("q", new MemberSearchCondition(), null, null);
+    cache.get(key, () -> 1, v -> 10);
+
+    cache.onTableChanged(new TableChangedEvent("hello"));
+    assertThat(cache.get(key, () -> 2, v -> 10)).isEqualTo(1);
+
+    cache.onTableChanged(new TableChangedEvent("team"));
+    assertThat(cache.get(key, () -> 2, v -> 10)).isEqualTo(2);
+    assertThat(cache.stats().weight()).isEqualTo(10);
+  }
+
+  @Test
+  void returnCopies() {
+    SearchResultCache cache = new SearchResultCache(true, Duration.ofMinutes(1), DataSize.ofKilobytes(1));
+    SearchResultCache.Key key = new SearchResultCache.Key("q", new MemberSearchCondition(), null, null);
+
+    List<Integer> loaded = cache.get(key, () -> new ArrayList<>(List.of(1)), v -> 10, ArrayList::new);
+    loaded.add(2);
+    List<Integer> hit = cache.get(key, () -> new ArrayList<>(List.of(3)), v -> 10, ArrayList::new);
+    hit.add(4);
+
+    // 반환한 결과를 수정해도 캐시된 값은 그대로다
+    assertThat(cache.get(key, () -> new ArrayList<>(List.of(3)), v -> 10, ArrayList::new)).containsExactly(1);
+  }
+
+  @Test
+  void purgeExpiredBeforeAdmission() throws InterruptedException {
+    // 항목 하나만 들어가는 크기
+    SearchResultCache cache = new SearchResultCache(true, Duration.ofMillis(50), DataSize.ofBytes(100));
+    SearchResultCache.Key hot = new SearchResultCache.Key("hot", null, null, null);
+    SearchResultCache.Key cold = new SearchResultCache.Key("cold", null, null, null);
+
+    for (int i = 0; i < 5; i++) {
+      cache.get(hot, () -> "hot", v -> 100);
+    }
+    Thread.sleep(100);
+
+    // 만료된 hot 이 더 자주 쓰였더라도 cold 를 거절하지 않는다
+    cache.get(cold, () -> "cold", v -> 100);
+    assertThat(cache.get(cold, () -> "reloaded", v -> 100)).isEqualTo("cold");
+    assertThat(cache.stats().rejections()).isZero();
+    assertThat(cache.stats().evictions()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+  @PersistenceContext
+  EntityManager em;
+
+  @Autowired
+  MemberExportService memberExportService;
+
+  @Test
+  void exportCsv() throws Exception {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member,2", 20, teamA));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    StringWriter writer = new StringWriter();
+    long count = memberExportService.export(condition, ExportFormat.CSV, writer);
+
+    assertThat(count).isEqualTo(2);
+    assertThat(writer.toString().split("\n"))
+        .hasSize(3)
+        .anyMatch(line -> line.contains("\"member,2\",20"));
+  }
+
+  @Test
+  void exportNdjson() throws Exception {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+
+    StringWriter writer = new StringWriter();
+    memberExportService.export(new MemberSearchCondition(), ExportFormat.NDJSON, writer);
+
+    assertThat(writer.toString()).contains("\"username\":\"member1\"").endsWith("\n");
+  }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSamplerTest {
+
+  @Test
+  void sameSeedSameData() {
+    MemberSampler sampler1 = new MemberSampler(42, 100, 1.0, 35, 12, 10);
+    MemberSampler sampler2 = new MemberSampler(42, 100, 1.0, 35, 12, 10);
+
+    RandomGenerator random1 = sampler1.random(3);
+    RandomGenerator random2 = sampler2.random(3);
+    for (long sequence = 0; sequence < 100; sequence++) {
+      assertThat(sampler1.username(sequence, random1)).isEqualTo(sampler2.username(sequence, random2));
+      assertThat(sampler1.age(random1)).isEqualTo(sampler2.age(random2));
+      assertThat(sampler1.teamIndex(random1)).isEqualTo(sampler2.teamIndex(random2));
+    }
+  }
+
+  @Test
+  void skewedTeamSize() {
+    MemberSampler sampler = new MemberSampler(42, 100, 1.0, 35, 12, 10);
+    RandomGenerator random = sampler.random(0);
+
+    int[] counts = new int[100];
+    for (int i = 0; i < 10000; i++) {
+      counts[sampler.teamIndex(random)]++;
+    }
+
+    // Zipf(1.0), 100 팀: 첫 번째 팀이 약 19%, 마지막 팀이 약 0.2%
+    assertThat(counts[0]).isGreaterThan(counts[99] * 10);
+  }
+
+  @Test
+  void ageAndUsernameRange() {
+    MemberSampler sampler = new MemberSampler(42, 10, 0, 35, 50, 10);
+    RandomGenerator random = sampler.random(0);
+
+    for (long sequence = 0; sequence < 1000; sequence++) {
+      assertThat(sampler.age(random)).isBetween(0, 99);
+      assertThat(sampler.username(sequence, random)).matches("member[0-9]");
+    }
+  }
+}
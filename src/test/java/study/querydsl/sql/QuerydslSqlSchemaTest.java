@@ -0,0 +1,70 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 직접 작성한 querydsl-sql 메타 모델(SMember, STeam)이 Hibernate 가 만든 스키마와 같은지 확인한다.
+ */
+@SpringBootTest
+class QuerydslSqlSchemaTest {
+
+  @Autowired
+  DataSource dataSource;
+
+  @Test
+  void member() throws SQLException {
+    assertMatchesSchema(SMember.member);
+  }
+
+  @Test
+  void team() throws SQLException {
+    assertMatchesSchema(STeam.team);
+  }
+
+  private void assertMatchesSchema(RelationalPath<?> table) throws SQLException {
+    Map<String, Column> columns = columns(table.getSchemaName(), table.getTableName());
+
+    assertThat(columns.keySet())
+        .containsExactlyInAnyOrderElementsOf(table.getColumns().stream()
+            .map(column -> table.getMetadata(column).getName())
+            .toList());
+    for (Path<?> path : table.getColumns()) {
+      ColumnMetadata metadata = table.getMetadata(path);
+      Column column = columns.get(metadata.getName());
+      assertThat(column.type()).as(metadata.getName()).isEqualTo(metadata.getJdbcType());
+      assertThat(column.nullable()).as(metadata.getName()).isEqualTo(metadata.isNullable());
+    }
+  }
+
+  private Map<String, Column> columns(String schema, String table) throws SQLException {
+    Map<String, Column> columns = new HashMap<>();
+    try (Connection connection = dataSource.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      try (ResultSet resultSet = metaData.getColumns(null, schema, table, null)) {
+        while (resultSet.next()) {
+          columns.put(resultSet.getString("COLUMN_NAME"), new Column(resultSet.getInt("DATA_TYPE"),
+              resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+        }
+      }
+    }
+    return columns;
+  }
+
+  private record Column(int type, boolean nullable) {
+  }
+}